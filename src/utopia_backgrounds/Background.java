@@ -4,8 +4,10 @@ import java.awt.Graphics2D;
 import java.util.ArrayList;
 
 import utopia_gameobjects.DrawnObject;
+import utopia_graphic.RenderState;
 import utopia_graphic.SingleSpriteDrawer;
 import utopia_graphic.Sprite;
+import utopia_graphic.SpriteRenderState;
 import utopia_utility.DepthConstants;
 import utopia_worlds.Area;
 
@@ -20,6 +22,8 @@ public class Background extends DrawnObject
 	// ATTRIBUTES	-------------------------------------------------------
 	
 	private SingleSpriteDrawer texturedrawer;
+	// Subclasses that draw something else can't be recorded as a sprite
+	private boolean recordable;
 	
 	
 	// CONSTRUCTOR	-------------------------------------------------------
@@ -41,6 +45,8 @@ public class Background extends DrawnObject
 		// Initializes attributes
 		this.texturedrawer = new SingleSpriteDrawer(sprite, 
 				area.getActorHandler(), this);
+		this.recordable = SpriteRenderState.drawsOnlySprite(getClass(), 
+				Background.class);
 	}
 	
 	
@@ -67,6 +73,19 @@ public class Background extends DrawnObject
 			this.texturedrawer.drawSprite(g2d, 0, 0);
 	}
 	
+	@Override
+	public RenderState getRenderState()
+	{
+		// The background only draws its texture so it can be recorded
+		if (!this.recordable || this.texturedrawer == null || 
+				this.texturedrawer.isDead())
+			return null;
+		
+		return new SpriteRenderState(getDrawTransformation(), 
+				this.texturedrawer.getSprite(), 
+				this.texturedrawer.getImageIndex(), getAlpha(), getDepth());
+	}
+	
 	
 	// GETTERS & SETTERS	----------------------------------------------
 	
@@ -110,6 +129,7 @@ public class Background extends DrawnObject
 	 * @param area The area where the background will reside
 	 * 
 	 * @return A list containing all backgrounds used to create the surface
+	 * @see RepeatingBackground
 	 */
 	public static ArrayList<Background> getRepeatedBackground(
 			int minx, int miny, int width, int height, boolean approximate, 
@@ -0,0 +1,301 @@
+package utopia_backgrounds;
+
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.TexturePaint;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+import utopia_graphic.RenderState;
+import utopia_graphic.SingleSpriteDrawer;
+import utopia_graphic.Sprite;
+import utopia_graphic.SpriteRenderState;
+import utopia_worlds.Area;
+
+/**
+ * RepeatingBackground is a background that fills a larger area by repeating 
+ * its texture. The whole area is filled with a single draw so a large 
+ * backdrop doesn't need a separate background for each repetition. The 
+ * texture can also be scrolled, which can be used for parallax layers.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ * @see Background#getRepeatedBackground(int, int, int, int, boolean, Sprite, Area)
+ */
+public class RepeatingBackground extends Background
+{
+	// ATTRIBUTES	-------------------------------------------------------
+	
+	private int width, height;
+	private double xoffset, yoffset;
+	// The paint is only recreated when the drawn image or the offset changes
+	private TexturePaint paint;
+	private BufferedImage paintimage;
+	private double paintanchorx, paintanchory;
+	// Subclasses that draw something else can't be recorded as a fill
+	private boolean recordable;
+	
+	
+	// CONSTRUCTOR	-------------------------------------------------------
+	
+	/**
+	 * Creates a new repeating background to the given coordinates and adds 
+	 * it to the given handlers.
+	 *
+	 * @param x The background's top left x-coordinate
+	 * @param y The background's top left y-coordinate
+	 * @param width The width of the filled area (in pixels)
+	 * @param height The height of the filled area (in pixels)
+	 * @param texture The sprite that is repeated over the area
+	 * @param area The area where the object will reside
+	 */
+	public RepeatingBackground(int x, int y, int width, int height, 
+			Sprite texture, Area area)
+	{
+		super(x, y, texture, area);
+		
+		// Initializes attributes
+		this.width = width;
+		this.height = height;
+		this.xoffset = 0;
+		this.yoffset = 0;
+		this.paint = null;
+		this.paintimage = null;
+		this.paintanchorx = 0;
+		this.paintanchory = 0;
+		this.recordable = SpriteRenderState.drawsOnlySprite(getClass(), 
+				RepeatingBackground.class);
+	}
+	
+	
+	// IMPLEMENTED METHODS	----------------------------------------------
+	
+	@Override
+	public void drawSelfBasic(Graphics2D g2d)
+	{
+		TexturePaint texturepaint = getTexturePaint();
+		if (texturepaint != null)
+			fill(g2d, texturepaint, this.width, this.height);
+	}
+	
+	@Override
+	public RenderState getRenderState()
+	{
+		// The background only fills its area with the texture so it can be 
+		// recorded
+		if (!this.recordable)
+			return null;
+		
+		TexturePaint texturepaint = getTexturePaint();
+		if (texturepaint == null)
+			return null;
+		
+		return new FillRenderState(getDrawTransformation(), texturepaint, 
+				this.width, this.height, getAlpha());
+	}
+	
+	@Override
+	public void setDimensions(int width, int height)
+	{
+		// Instead of scaling the texture, changes the size of the filled area
+		this.width = width;
+		this.height = height;
+	}
+	
+	
+	// GETTERS & SETTERS	----------------------------------------------
+	
+	/**
+	 * @return The width of the filled area (in pixels)
+	 */
+	public int getWidth()
+	{
+		return this.width;
+	}
+	
+	/**
+	 * @return The height of the filled area (in pixels)
+	 */
+	public int getHeight()
+	{
+		return this.height;
+	}
+	
+	/**
+	 * @return How much the texture is moved to the right inside the area 
+	 * (in pixels)
+	 */
+	public double getXOffset()
+	{
+		return this.xoffset;
+	}
+	
+	/**
+	 * @return How much the texture is moved downwards inside the area 
+	 * (in pixels)
+	 */
+	public double getYOffset()
+	{
+		return this.yoffset;
+	}
+	
+	/**
+	 * Changes how much the texture is moved inside the area. The area 
+	 * itself stays in place.
+	 *
+	 * @param xoffset How much the texture is moved to the right (in pixels)
+	 * @param yoffset How much the texture is moved downwards (in pixels)
+	 */
+	public void setScrollOffset(double xoffset, double yoffset)
+	{
+		this.xoffset = xoffset;
+		this.yoffset = yoffset;
+	}
+	
+	
+	// OTHER METHODS	--------------------------------------------------
+	
+	/**
+	 * Moves the texture inside the area. A parallax layer can be created by 
+	 * scrolling the background a fraction of the camera's movement.
+	 *
+	 * @param hspeed How much the texture is moved to the right (in pixels)
+	 * @param vspeed How much the texture is moved downwards (in pixels)
+	 */
+	public void scroll(double hspeed, double vspeed)
+	{
+		setScrollOffset(this.xoffset + hspeed, this.yoffset + vspeed);
+	}
+	
+	// Returns the paint that repeats the current subimage of the texture. 
+	// Returns null if there's no texture to draw.
+	private synchronized TexturePaint getTexturePaint()
+	{
+		SingleSpriteDrawer drawer = getSpriteDrawer();
+		if (drawer == null || drawer.isDead())
+			return null;
+		
+		Sprite texture = drawer.getSprite();
+		BufferedImage image = texture.getSubImage(drawer.getImageIndex());
+		int texturewidth = texture.getWidth();
+		int textureheight = texture.getHeight();
+		
+		// The texture repeats so the offset only matters within a single 
+		// repetition
+		double anchorx = this.xoffset % texturewidth;
+		double anchory = this.yoffset % textureheight;
+		
+		if (this.paint == null || this.paintimage != image || 
+				this.paintanchorx != anchorx || this.paintanchory != anchory)
+		{
+			this.paint = new TexturePaint(image, new Rectangle2D.Double(
+					anchorx, anchory, texturewidth, textureheight));
+			this.paintimage = image;
+			this.paintanchorx = anchorx;
+			this.paintanchory = anchory;
+		}
+		
+		return this.paint;
+	}
+	
+	// Fills the whole area with the texture at once
+	private static void fill(Graphics2D g2d, TexturePaint texturepaint, 
+			int width, int height)
+	{
+		Paint originalpaint = g2d.getPaint();
+		g2d.setPaint(texturepaint);
+		g2d.fillRect(0, 0, width, height);
+		g2d.setPaint(originalpaint);
+	}
+	
+	
+	// SUBCLASSES	------------------------------------------------------
+	
+	// FillRenderState records the filled area of a repeating background. 
+	// The paint isn't changed after it is created so it can be shared 
+	// with the background.
+	private static class FillRenderState implements RenderState
+	{
+		// ATTRIBUTES	------------------------------------------------
+		
+		private final AffineTransform transform;
+		private final TexturePaint paint;
+		private final int width, height;
+		private final float alpha;
+		private Rectangle2D bounds;
+		
+		
+		// CONSTRUCTOR	------------------------------------------------
+		
+		public FillRenderState(AffineTransform transform, TexturePaint paint, 
+				int width, int height, float alpha)
+		{
+			// Initializes attributes
+			this.transform = new AffineTransform(transform);
+			this.paint = paint;
+			this.width = width;
+			this.height = height;
+			this.alpha = alpha;
+			this.bounds = null;
+		}
+		
+		
+		// IMPLEMENTED METHODS	----------------------------------------
+		
+		@Override
+		public void draw(Graphics2D g2d)
+		{
+			// Remembers the previous transformation and transparency
+			AffineTransform originaltransform = g2d.getTransform();
+			Composite originalcomposite = g2d.getComposite();
+			
+			g2d.setComposite(AlphaComposite.getInstance(
+					AlphaComposite.SRC_OVER, this.alpha));
+			g2d.transform(this.transform);
+			fill(g2d, this.paint, this.width, this.height);
+			
+			g2d.setTransform(originaltransform);
+			g2d.setComposite(originalcomposite);
+		}
+		
+		@Override
+		public Rectangle2D getBounds()
+		{
+			// The bounds are only calculated when needed
+			if (this.bounds == null)
+				this.bounds = this.transform.createTransformedShape(
+						new Rectangle2D.Double(0, 0, this.width, 
+						this.height)).getBounds2D();
+			
+			return this.bounds;
+		}
+		
+		@Override
+		public boolean equals(Object other)
+		{
+			if (!(other instanceof FillRenderState))
+				return false;
+			
+			// The paint is only recreated when the image or the offset 
+			// changes
+			FillRenderState otherstate = (FillRenderState) other;
+			return this.paint == otherstate.paint && 
+					this.width == otherstate.width && 
+					this.height == otherstate.height && 
+					this.alpha == otherstate.alpha && 
+					this.transform.equals(otherstate.transform);
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			int hash = System.identityHashCode(this.paint);
+			hash = 31 * hash + this.width;
+			hash = 31 * hash + this.height;
+			return 31 * hash + this.transform.hashCode();
+		}
+	}
+}
@@ -1,9 +1,22 @@
 package utopia_backgrounds;
 
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import utopia_gameobjects.DimensionalDrawnObject;
+import utopia_gameobjects.DrawnObject;
+import utopia_graphic.Sprite;
+import utopia_handleds.Actor;
 import utopia_handlers.ActorHandler;
 import utopia_handlers.DrawableHandler;
 import utopia_resourcebanks.SpriteBank;
@@ -14,7 +27,19 @@ import utopia_worlds.Area;
 /**
  * Tilemaps hold a certain number of tiles. Tilemaps can be created using tables 
  * that tell which values to use. Tilemaps must be initialized before use and 
- * cleared or killed afterwards.
+ * cleared or killed afterwards.<p>
+ * 
+ * A baked tilemap draws its tiles into larger chunk images when it is 
+ * initialized so that only a few images need to be drawn each step. Animated 
+ * tiles are still drawn separately on top of the chunks.<p>
+ * 
+ * A streamed tilemap is baked as well but it only draws the chunks near the 
+ * drawn area and the followed object. The chunks are drawn in a separate 
+ * thread and released once they are far enough, which keeps the memory use 
+ * low and the initialization fast even for huge maps. The animated tiles 
+ * of a streamed map are created and released with their chunks. The chunks of a map 
+ * that isn't drawn are released at the next step, which requires an area 
+ * with an actorhandler.
  *
  * @author Mikko Hilpinen.
  *         Created 9.7.2013.
@@ -29,6 +54,32 @@ public class TileMap extends DimensionalDrawnObject
 	private Area area;
 	private ActorHandler tileAnimator;
 	private DrawableHandler tileDrawer;
+	private boolean baked, streamed;
+	// The images the static tiles are drawn into (only used when baked)
+	private BufferedImage[] chunks;
+	// The textures are needed as long as there are chunks to be drawn
+	private ArrayList<SpriteBank> texturebanks;
+	private ArrayList<String> texturenames;
+	private Rectangle bakedarea;
+	private int chunkcolumns, chunkrows, cellmarginx, cellmarginy;
+	// The tiles that are animated and thus can't be baked
+	private ArrayList<Tile> animatedtiles;
+	// The animated tiles of each streamed chunk (only used when streamed)
+	private Tile[][] chunktiles;
+	// Which chunks have been requested from the streamer (only used when 
+	// streamed)
+	private boolean[] chunkrequested;
+	private ChunkStreamer streamer;
+	private int streamradius;
+	private DrawnObject streamfocus;
+	// When the chunks of a streamed map were last drawn (milliseconds)
+	private volatile long lastchunkdraw;
+	
+	// How wide and high a single baked chunk is (pixels)
+	private static final int CHUNKSIZE = 512;
+	// How long the chunks of a streamed map are kept after the map was last 
+	// drawn (milliseconds)
+	private static final long CHUNKRELEASEDELAY = 1000;
 	
 	
 	// CONSTRUCTOR	------------------------------------------------------
@@ -80,10 +131,31 @@ public class TileMap extends DimensionalDrawnObject
 		this.nameindexes = nameindexes;
 		this.area = area;
 		this.tileDrawer = null;
+		this.baked = false;
+		this.streamed = false;
+		this.chunks = null;
+		this.texturebanks = null;
+		this.texturenames = null;
+		this.bakedarea = null;
+		this.chunkcolumns = 0;
+		this.chunkrows = 0;
+		this.cellmarginx = 0;
+		this.cellmarginy = 0;
+		this.animatedtiles = null;
+		this.chunktiles = null;
+		this.chunkrequested = null;
+		this.streamer = null;
+		this.streamradius = CHUNKSIZE;
+		this.streamfocus = null;
+		this.lastchunkdraw = 0;
 		
-		// Only uses animation if actorhandler was specified
+		// Only uses animation if actorhandler was specified. The same handler 
+		// releases the chunks of a streamed map that isn't drawn.
 		if (area.getActorHandler() != null)
+		{
 			this.tileAnimator = new ActorHandler(false, area.getActorHandler());
+			this.tileAnimator.addActor(new ChunkReleaser());
+		}
 		else
 			this.tileAnimator = null;
 	}
@@ -114,8 +186,14 @@ public class TileMap extends DimensionalDrawnObject
 	public void drawSelf(Graphics2D g2d)
 	{	
 		// Draws the tiles if they are initialized
-		if (this.initialized)
-			this.tileDrawer.drawSelf(g2d);
+		if (!this.initialized)
+			return;
+		
+		DrawableHandler drawer = this.tileDrawer;
+		if (drawer != null)
+			drawer.drawSelf(g2d);
+		else
+			drawChunks(g2d);
 		// Doesn't draw the map itself so no drawSelfBasic is called
 	}
 	
@@ -204,6 +282,76 @@ public class TileMap extends DimensionalDrawnObject
 		this.tileheight = tileheight;
 	}
 	
+	/**
+	 * Changes whether the static tiles are drawn into larger chunk images 
+	 * instead of being separate objects. A baked map is much faster to draw 
+	 * but uses more memory. The change only takes place after the map has 
+	 * been reinitialized
+	 *
+	 * @param baked Should the map be baked into chunk images
+	 */
+	public void setBaked(boolean baked)
+	{
+		this.baked = baked;
+	}
+	
+	/**
+	 * @return Are the static tiles drawn into larger chunk images
+	 */
+	public boolean isBaked()
+	{
+		return this.baked || this.streamed;
+	}
+	
+	/**
+	 * Changes whether the map is streamed. A streamed map is baked but 
+	 * only the chunks near the drawn area and the streaming focus are drawn. 
+	 * The chunks are drawn in a separate thread so it may take a moment 
+	 * before they appear. The change only takes place after the map has 
+	 * been reinitialized
+	 *
+	 * @param streamed Should the map be streamed
+	 * @see #setBaked(boolean)
+	 * @see #setStreamingRadius(int)
+	 * @see #setStreamingFocus(DrawnObject)
+	 */
+	public void setStreamed(boolean streamed)
+	{
+		this.streamed = streamed;
+	}
+	
+	/**
+	 * @return Is the map streamed
+	 */
+	public boolean isStreamed()
+	{
+		return this.streamed;
+	}
+	
+	/**
+	 * Changes how far from the drawn area and the streaming focus the chunks 
+	 * of a streamed map are prepared. The chunks are released once they are 
+	 * a chunk further away than this.
+	 *
+	 * @param radius How far the chunks are prepared (pixels)
+	 */
+	public void setStreamingRadius(int radius)
+	{
+		this.streamradius = Math.max(0, radius);
+	}
+	
+	/**
+	 * Changes the object the chunks of a streamed map are prepared around 
+	 * in addition to the drawn area. This can be used for preparing the 
+	 * chunks before the object is shown, for example.
+	 *
+	 * @param focus The object the chunks are prepared around (optional)
+	 */
+	public void setStreamingFocus(DrawnObject focus)
+	{
+		this.streamfocus = focus;
+	}
+	
 	
 	// OTHER METHODS	-------------------------------------------------
 	
@@ -222,6 +370,47 @@ public class TileMap extends DimensionalDrawnObject
 			this.tileDrawer.kill();
 			this.tileDrawer = null;
 		}
+		
+		// Releases the baked chunks and the animated tiles. Waits until the 
+		// chunk that is being streamed is ready.
+		synchronized (this)
+		{
+			BufferedImage[] chunks = this.chunks;
+			if (chunks != null)
+			{
+				synchronized (chunks)
+				{
+					if (this.chunktiles != null)
+					{
+						for (int i = 0; i < this.chunktiles.length; i++)
+						{
+							releaseChunkTiles(i);
+						}
+					}
+					
+					this.chunks = null;
+					this.chunktiles = null;
+					this.chunkrequested = null;
+					if (this.streamer != null)
+					{
+						this.streamer.stop();
+						this.streamer = null;
+					}
+				}
+			}
+			
+			this.texturebanks = null;
+			this.texturenames = null;
+		}
+		
+		if (this.animatedtiles != null)
+		{
+			for (Tile tile : this.animatedtiles)
+			{
+				tile.kill();
+			}
+			this.animatedtiles = null;
+		}
 	}
 	
 	/**
@@ -241,6 +430,14 @@ public class TileMap extends DimensionalDrawnObject
 		if (this.initialized)
 			return;
 		
+		// Baked maps draw their tiles into chunks instead
+		if (this.baked || this.streamed)
+		{
+			bake(banks, texturenames);
+			this.initialized = true;
+			return;
+		}
+		
 		// Initializes the tiledrawer
 		this.tileDrawer = new DrawableHandler(false, false, getDepth(), 0, 
 				this.area.getDrawer());
@@ -250,27 +447,640 @@ public class TileMap extends DimensionalDrawnObject
 		{
 			// If the bankindex or nameindex is negative, that means that the 
 			// tile should be ignored
+			Sprite texture = getTileTexture(i, banks, texturenames);
+			if (texture != null)
+				createTile(i, texture);
+		}
+	}
+	
+	// Finds the texture used in the tile with the given index. Returns null 
+	// if the tile should be ignored
+	private Sprite getTileTexture(int index, ArrayList<SpriteBank> banks, 
+			ArrayList<String> texturenames)
+	{
+		// If the bankindex or nameindex is negative, that means that the 
+		// tile should be ignored
+		if (this.bankindexes[index] < 0 || this.nameindexes[index] < 0)
+			return null;
+		
+		return banks.get(this.bankindexes[index]).getSprite(
+				texturenames.get(this.nameindexes[index]));
+	}
+	
+	private Tile createTile(int index, Sprite texture)
+	{
+		Tile newtile = new Tile(getTileX(index), getTileY(index), texture, 
+				this.tilewidth, this.tileheight, this.area);
+		
+		// Rotates and scales the tile
+		newtile.setAngle(this.rotations[index]);
+		newtile.scale(this.xscales[index], this.yscales[index]);
+		
+		// Also changes the object's position so that the starting position 
+		// becomes the left corner
+		if (newtile.getOriginX() != 0 || newtile.getOriginY() != 0)
+			newtile.addPosition(-newtile.getOriginX(), -newtile.getOriginY());
+		
+		return newtile;
+	}
+	
+	// The center of the tile's cell
+	private int getTileX(int index)
+	{
+		return (int) getX() + (index % this.width) * this.tilewidth + 
+				this.tilewidth / 2;
+	}
+	
+	private int getTileY(int index)
+	{
+		return (int) getY() + (index / this.width) * this.tileheight + 
+				this.tileheight / 2;
+	}
+	
+	// The same transformation a tile object would use
+	private AffineTransform getTileTransformation(int index, Sprite texture)
+	{
+		int originx = texture.getWidth() / 2;
+		int originy = texture.getHeight() / 2;
+		
+		AffineTransform transform = AffineTransform.getTranslateInstance(
+				getTileX(index) - originx, getTileY(index) - originy);
+		transform.rotate(Math.toRadians(360 - this.rotations[index]));
+		transform.scale(this.tilewidth / (double) texture.getWidth() * 
+				this.xscales[index], this.tileheight / 
+				(double) texture.getHeight() * this.yscales[index]);
+		transform.translate(-originx, -originy);
+		
+		return transform;
+	}
+	
+	// The area of the game world the tile is drawn on
+	private Rectangle2D getTileBounds(int index, Sprite texture)
+	{
+		return getTileTransformation(index, texture).createTransformedShape(
+				new Rectangle2D.Double(0, 0, texture.getWidth(), 
+				texture.getHeight())).getBounds2D();
+	}
+	
+	// Draws the static tiles into chunks and creates objects for the 
+	// animated ones
+	private void bake(ArrayList<SpriteBank> banks, 
+			ArrayList<String> texturenames)
+	{
+		// Streamed maps don't go through the tiles one by one
+		if (this.streamed)
+		{
+			startStreaming(banks, texturenames);
+			return;
+		}
+		
+		this.animatedtiles = new ArrayList<Tile>();
+		
+		// Finds the area the static tiles cover. The tiles don't always stay 
+		// inside their cells so the chunks may need to reach past the map.
+		Rectangle2D coveredarea = null;
+		this.cellmarginx = 0;
+		this.cellmarginy = 0;
+		for (int i = 0; i < this.width * this.height; i++)
+		{
+			Sprite texture = getTileTexture(i, banks, texturenames);
+			if (texture == null)
+				continue;
+			
+			if (texture.getImageNumber() > 1)
+			{
+				// Animated tiles are drawn over the chunks
+				Tile tile = createTile(i, texture);
+				tile.setDepth(getDepth() - 1);
+				this.animatedtiles.add(tile);
+				continue;
+			}
+			
+			Rectangle2D bounds = getTileBounds(i, texture);
+			if (coveredarea == null)
+				coveredarea = bounds;
+			else
+				coveredarea.add(bounds);
+			
+			// Remembers how many cells away the tiles may reach
+			double cellx = getX() + (i % this.width) * this.tilewidth;
+			double celly = getY() + (i / this.width) * this.tileheight;
+			this.cellmarginx = Math.max(this.cellmarginx, (int) Math.ceil(
+					Math.max(cellx - bounds.getMinX(), bounds.getMaxX() - 
+					cellx - this.tilewidth) / this.tilewidth));
+			this.cellmarginy = Math.max(this.cellmarginy, (int) Math.ceil(
+					Math.max(celly - bounds.getMinY(), bounds.getMaxY() - 
+					celly - this.tileheight) / this.tileheight));
+		}
+		
+		if (coveredarea == null)
+			this.bakedarea = new Rectangle();
+		else
+			this.bakedarea = coveredarea.getBounds();
+		this.chunkcolumns = (this.bakedarea.width + CHUNKSIZE - 1) / CHUNKSIZE;
+		this.chunkrows = (this.bakedarea.height + CHUNKSIZE - 1) / CHUNKSIZE;
+		BufferedImage[] chunks = 
+				new BufferedImage[this.chunkcolumns * this.chunkrows];
+		this.texturebanks = banks;
+		this.texturenames = texturenames;
+		
+		for (int i = 0; i < chunks.length; i++)
+		{
+			chunks[i] = bakeChunk(i % this.chunkcolumns, i / this.chunkcolumns, 
+					null);
+		}
+		this.chunks = chunks;
+		this.texturebanks = null;
+		this.texturenames = null;
+	}
+	
+	// Prepares the chunk grid of a streamed map and starts the streamer. The 
+	// chunks (and their animated tiles) are only created once they are 
+	// requested.
+	private void startStreaming(ArrayList<SpriteBank> banks, 
+			ArrayList<String> texturenames)
+	{
+		findCellMargins(banks, texturenames);
+		
+		// The chunks cover the map and the margins around it
+		int minx = (int) Math.floor(getX()) - this.cellmarginx * this.tilewidth;
+		int miny = (int) Math.floor(getY()) - this.cellmarginy * this.tileheight;
+		int maxx = (int) Math.ceil(getX() + getWidth()) + 
+				this.cellmarginx * this.tilewidth;
+		int maxy = (int) Math.ceil(getY() + getHeight()) + 
+				this.cellmarginy * this.tileheight;
+		this.bakedarea = new Rectangle(minx, miny, maxx - minx, maxy - miny);
+		this.chunkcolumns = (this.bakedarea.width + CHUNKSIZE - 1) / CHUNKSIZE;
+		this.chunkrows = (this.bakedarea.height + CHUNKSIZE - 1) / CHUNKSIZE;
+		
+		int chunknumber = this.chunkcolumns * this.chunkrows;
+		this.texturebanks = banks;
+		this.texturenames = texturenames;
+		this.chunkrequested = new boolean[chunknumber];
+		this.chunktiles = new Tile[chunknumber][];
+		this.streamer = new ChunkStreamer(this);
+		this.chunks = new BufferedImage[chunknumber];
+		
+		Thread thread = new Thread(this.streamer);
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	// Finds how many cells away from their own cells the tiles may reach. 
+	// Only the index and scale tables are read for each tile, the textures 
+	// are checked once each.
+	private void findCellMargins(ArrayList<SpriteBank> banks, 
+			ArrayList<String> texturenames)
+	{
+		boolean[][] usedtextures = 
+				new boolean[banks.size()][texturenames.size()];
+		int maxxscale = 0, maxyscale = 0;
+		
+		for (int i = 0; i < this.width * this.height; i++)
+		{
 			if (this.bankindexes[i] < 0 || this.nameindexes[i] < 0)
 				continue;
 			
-			int x = (int) getX() + (i % this.height) * this.tilewidth + 
-					this.tilewidth / 2;
-			int y = (int) getY() + (i / this.width) * this.tileheight + 
-					this.tileheight / 2;
+			usedtextures[this.bankindexes[i]][this.nameindexes[i]] = true;
+			maxxscale = Math.max(maxxscale, Math.abs(this.xscales[i]));
+			maxyscale = Math.max(maxyscale, Math.abs(this.yscales[i]));
+		}
+		
+		// A rotated tile may reach as far as half of its diagonal from the 
+		// point it is drawn around
+		double reach = Math.sqrt(Math.pow(this.tilewidth * maxxscale, 2) + 
+				Math.pow(this.tileheight * maxyscale, 2)) / 2;
+		
+		this.cellmarginx = 0;
+		this.cellmarginy = 0;
+		for (int bank = 0; bank < usedtextures.length; bank++)
+		{
+			for (int name = 0; name < usedtextures[bank].length; name++)
+			{
+				if (!usedtextures[bank][name])
+					continue;
+				
+				Sprite texture = banks.get(bank).getSprite(
+						texturenames.get(name));
+				if (texture == null)
+					continue;
+				
+				// Animated tiles are created as tiles so they don't affect 
+				// the chunks
+				if (texture.getImageNumber() > 1)
+					continue;
+				
+				this.cellmarginx = Math.max(this.cellmarginx, getCellMargin(
+						this.tilewidth, texture.getWidth() / 2, reach));
+				this.cellmarginy = Math.max(this.cellmarginy, getCellMargin(
+						this.tileheight, texture.getHeight() / 2, reach));
+			}
+		}
+	}
+	
+	// How many cells past its own cell a tile may reach on one axis. The 
+	// tiles are drawn around the cell's center moved by the texture's 
+	// origin, like in getTileTransformation.
+	private static int getCellMargin(int cellsize, int origin, double reach)
+	{
+		double center = cellsize / 2 - origin;
+		double overflow = Math.max(reach - center, center + reach - cellsize);
+		
+		return (int) Math.ceil(Math.max(0, overflow) / cellsize);
+	}
+	
+	// Draws the static tiles that overlap the chunk. Returns null if there 
+	// are no such tiles. If a list is provided, tile objects are created 
+	// for the animated tiles whose cell's center is in the chunk.
+	private BufferedImage bakeChunk(int column, int row, 
+			ArrayList<Tile> animatedtiles)
+	{
+		Rectangle chunkarea = getChunkArea(column, row);
+		
+		// Only the tiles in and near the chunk may overlap it
+		int mincolumn = Math.max(0, (int) Math.floor((chunkarea.x - getX()) / 
+				this.tilewidth) - this.cellmarginx);
+		int maxcolumn = Math.min(this.width - 1, (int) Math.floor((chunkarea.x + 
+				chunkarea.width - getX()) / this.tilewidth) + this.cellmarginx);
+		int minrow = Math.max(0, (int) Math.floor((chunkarea.y - getY()) / 
+				this.tileheight) - this.cellmarginy);
+		int maxrow = Math.min(this.height - 1, (int) Math.floor((chunkarea.y + 
+				chunkarea.height - getY()) / this.tileheight) + this.cellmarginy);
+		
+		BufferedImage chunk = null;
+		Graphics2D g2d = null;
+		
+		for (int tilerow = minrow; tilerow <= maxrow; tilerow++)
+		{
+			for (int tilecolumn = mincolumn; tilecolumn <= maxcolumn; tilecolumn++)
+			{
+				int index = tilerow * this.width + tilecolumn;
+				Sprite texture = getTileTexture(index, this.texturebanks, 
+						this.texturenames);
+				if (texture == null)
+					continue;
+				
+				if (texture.getImageNumber() > 1)
+				{
+					// Each animated tile belongs to the chunk that has its 
+					// cell's center
+					if (animatedtiles != null && chunkarea.contains(
+							getTileX(index), getTileY(index)))
+					{
+						Tile tile = createTile(index, texture);
+						tile.setDepth(getDepth() - 1);
+						animatedtiles.add(tile);
+					}
+					continue;
+				}
+				
+				if (!getTileBounds(index, texture).intersects(chunkarea))
+					continue;
+				
+				// The chunk is created when the first tile is drawn into it
+				if (chunk == null)
+				{
+					chunk = Sprite.createCompatibleImage(chunkarea.width, 
+							chunkarea.height, Transparency.TRANSLUCENT);
+					g2d = chunk.createGraphics();
+					g2d.translate(-chunkarea.x, -chunkarea.y);
+				}
+				
+				AffineTransform original = g2d.getTransform();
+				g2d.transform(getTileTransformation(index, texture));
+				texture.drawSubImage(g2d, 0, 0, 0);
+				g2d.setTransform(original);
+			}
+		}
+		
+		if (g2d != null)
+			g2d.dispose();
+		
+		return chunk;
+	}
+	
+	// The area of the game world the chunk covers
+	private Rectangle getChunkArea(int column, int row)
+	{
+		int x = column * CHUNKSIZE;
+		int y = row * CHUNKSIZE;
+		
+		// The last chunks are smaller if the baked area doesn't divide evenly
+		return new Rectangle(this.bakedarea.x + x, this.bakedarea.y + y, 
+				Math.min(CHUNKSIZE, this.bakedarea.width - x), 
+				Math.min(CHUNKSIZE, this.bakedarea.height - y));
+	}
+	
+	// Draws the chunks that are visible
+	private void drawChunks(Graphics2D g2d)
+	{
+		Rectangle2D visiblearea = getVisibleArea(g2d);
+		
+		// The map may be cleared in another thread
+		BufferedImage[] chunks = this.chunks;
+		if (chunks == null)
+			return;
+		
+		synchronized (chunks)
+		{
+			if (this.chunks != chunks)
+				return;
+			
+			if (this.streamer != null)
+			{
+				this.lastchunkdraw = System.currentTimeMillis();
+				updateStreamedChunks(visiblearea);
+			}
 			
-			Tile newtile = new Tile(x, y, 
-					banks.get(this.bankindexes[i]).getSprite(
-					texturenames.get(this.nameindexes[i])), this.tilewidth, 
-					this.tileheight, this.area);
+			for (int i = 0; i < chunks.length; i++)
+			{
+				if (chunks[i] == null)
+					continue;
+				
+				Rectangle chunkarea = getChunkArea(i % this.chunkcolumns, 
+						i / this.chunkcolumns);
+				if (visiblearea == null || visiblearea.intersects(chunkarea))
+					g2d.drawImage(chunks[i], chunkarea.x, chunkarea.y, null);
+			}
+		}
+	}
+	
+	// Requests the chunks near the visible area and the focus and releases 
+	// the ones far away. Must be called while the chunks are locked.
+	private void updateStreamedChunks(Rectangle2D visiblearea)
+	{
+		Rectangle2D neededarea = null;
+		if (visiblearea != null)
+			neededarea = (Rectangle2D) visiblearea.clone();
+		
+		DrawnObject focus = this.streamfocus;
+		if (focus != null && !focus.isDead())
+		{
+			if (neededarea == null)
+				neededarea = new Rectangle2D.Double(focus.getX(), focus.getY(), 
+						0, 0);
+			else
+				neededarea.add(focus.getX(), focus.getY());
+		}
+		
+		if (neededarea == null)
+			return;
+		
+		// The chunks are kept a bit further than they are requested so that 
+		// they aren't rebuilt all the time near the border
+		double radius = this.streamradius;
+		Rectangle2D requestarea = new Rectangle2D.Double(
+				neededarea.getX() - radius, neededarea.getY() - radius, 
+				neededarea.getWidth() + 2 * radius, 
+				neededarea.getHeight() + 2 * radius);
+		radius += CHUNKSIZE;
+		Rectangle2D keptarea = new Rectangle2D.Double(
+				neededarea.getX() - radius, neededarea.getY() - radius, 
+				neededarea.getWidth() + 2 * radius, 
+				neededarea.getHeight() + 2 * radius);
+		
+		for (int i = 0; i < this.chunks.length; i++)
+		{
+			Rectangle chunkarea = getChunkArea(i % this.chunkcolumns, 
+					i / this.chunkcolumns);
 			
-			// Rotates and scales the tile
-			newtile.setAngle(this.rotations[i]);
-			newtile.scale(this.xscales[i], this.yscales[i]);
+			if (!this.chunkrequested[i])
+			{
+				if (requestarea.intersects(chunkarea))
+				{
+					this.chunkrequested[i] = true;
+					this.streamer.request(i);
+				}
+			}
+			else if (!keptarea.intersects(chunkarea))
+			{
+				this.chunkrequested[i] = false;
+				this.chunks[i] = null;
+				releaseChunkTiles(i);
+			}
+		}
+	}
+	
+	// Releases the chunks of a streamed map that hasn't been drawn for a 
+	// while, keeping only the ones near the focus. The drawing can't do this 
+	// since it doesn't happen when the map isn't drawn.
+	private void releaseUndrawnChunks()
+	{
+		if (isVisible() && System.currentTimeMillis() - this.lastchunkdraw < 
+				CHUNKRELEASEDELAY)
+			return;
+		
+		// The map may be cleared in another thread
+		BufferedImage[] chunks = this.chunks;
+		if (chunks == null)
+			return;
+		
+		synchronized (chunks)
+		{
+			if (this.chunks != chunks || this.streamer == null)
+				return;
+			
+			DrawnObject focus = this.streamfocus;
+			if (focus != null && !focus.isDead())
+				updateStreamedChunks(null);
+			else
+			{
+				for (int i = 0; i < chunks.length; i++)
+				{
+					this.chunkrequested[i] = false;
+					chunks[i] = null;
+					releaseChunkTiles(i);
+				}
+			}
+		}
+	}
+	
+	// Draws a requested chunk of a streamed map. Called in the streamer's 
+	// thread.
+	private void streamChunk(int index, ChunkStreamer streamer)
+	{
+		synchronized (this)
+		{
+			// The map may have been cleared or the chunk released while the 
+			// chunk was waiting
+			BufferedImage[] chunks = this.chunks;
+			if (this.streamer != streamer || chunks == null)
+				return;
+			synchronized (chunks)
+			{
+				if (!this.chunkrequested[index])
+					return;
+			}
+			
+			ArrayList<Tile> tiles = new ArrayList<Tile>();
+			BufferedImage chunk = bakeChunk(index % this.chunkcolumns, 
+					index / this.chunkcolumns, tiles);
 			
-			// Also changes the object's position so that the starting position 
-			// becomes the left corner
-			if (newtile.getOriginX() != 0 || newtile.getOriginY() != 0)
-				newtile.addPosition(-newtile.getOriginX(), -newtile.getOriginY());
+			synchronized (chunks)
+			{
+				if (this.chunkrequested[index])
+				{
+					chunks[index] = chunk;
+					releaseChunkTiles(index);
+					if (!tiles.isEmpty())
+						this.chunktiles[index] = tiles.toArray(
+								new Tile[tiles.size()]);
+					return;
+				}
+			}
+			
+			// The chunk was released while it was drawn
+			for (Tile tile : tiles)
+			{
+				tile.kill();
+			}
+		}
+	}
+	
+	// Kills the animated tiles of a streamed chunk. Must be called while the 
+	// chunks are locked.
+	private void releaseChunkTiles(int index)
+	{
+		Tile[] tiles = this.chunktiles[index];
+		if (tiles == null)
+			return;
+		
+		for (int i = 0; i < tiles.length; i++)
+		{
+			tiles[i].kill();
+		}
+		this.chunktiles[index] = null;
+	}
+	
+	// Finds the area of the game world the graphics object draws on. Returns 
+	// null if the area can't be determined.
+	private static Rectangle2D getVisibleArea(Graphics2D g2d)
+	{
+		Rectangle clip = g2d.getClipBounds();
+		if (clip != null)
+			return clip;
+		
+		// Without a clip, the whole drawing surface is used
+		try
+		{
+			return g2d.getTransform().createInverse().createTransformedShape(
+					g2d.getDeviceConfiguration().getBounds()).getBounds2D();
+		}
+		catch (NoninvertibleTransformException exception)
+		{
+			return null;
+		}
+	}
+	
+	
+	// SUBCLASSES	------------------------------------------------------
+	
+	// Chunkstreamers draw the requested chunks of a streamed map in their 
+	// own thread. The map is only referenced weakly so that the thread 
+	// doesn't keep a forgotten map alive. The streamer stops once the map 
+	// is gone or dead.
+	private static class ChunkStreamer implements Runnable
+	{
+		// ATTRIBUTES	------------------------------------------------
+		
+		private WeakReference<TileMap> map;
+		private BlockingQueue<Integer> requests;
+		private volatile boolean running;
+		
+		
+		// CONSTRUCTOR	------------------------------------------------
+		
+		public ChunkStreamer(TileMap map)
+		{
+			// Initializes attributes
+			this.map = new WeakReference<TileMap>(map);
+			this.requests = new LinkedBlockingQueue<Integer>();
+			this.running = true;
+		}
+		
+		
+		// IMPLEMENTED METHODS	----------------------------------------
+		
+		@Override
+		public void run()
+		{
+			while (this.running)
+			{
+				try
+				{
+					// Checks every now and then whether the streamer was 
+					// stopped
+					Integer index = this.requests.poll(100, 
+							TimeUnit.MILLISECONDS);
+					
+					TileMap map = this.map.get();
+					if (map == null || map.isDead())
+						stop();
+					else if (index != null && this.running)
+						map.streamChunk(index, this);
+				}
+				catch (InterruptedException exception)
+				{
+					this.running = false;
+				}
+			}
+		}
+		
+		
+		// OTHER METHODS	--------------------------------------------
+		
+		public void request(int index)
+		{
+			this.requests.add(index);
+		}
+		
+		public void stop()
+		{
+			this.running = false;
+			this.requests.clear();
+		}
+	}
+	
+	// Chunkreleaser releases the chunks of a streamed map when the map isn't 
+	// drawn
+	private class ChunkReleaser implements Actor
+	{
+		// IMPLEMENTED METHODS	----------------------------------------
+		
+		@Override
+		public void act(double steps)
+		{
+			releaseUndrawnChunks();
+		}
+		
+		@Override
+		public boolean isActive()
+		{
+			return TileMap.this.streamer != null;
+		}
+		
+		@Override
+		public void activate()
+		{
+			// The releaser is active while the map is streamed
+		}
+		
+		@Override
+		public void inactivate()
+		{
+			// The releaser is active while the map is streamed
+		}
+		
+		@Override
+		public boolean isDead()
+		{
+			return TileMap.this.isDead();
+		}
+		
+		@Override
+		public void kill()
+		{
+			// The releaser dies with the map
 		}
 	}
 }
@@ -3,12 +3,15 @@ package utopia_camera;
 import java.awt.Graphics2D;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 
 import utopia_gameobjects.BasicPhysicDrawnObject;
 import utopia_gameobjects.CollidingDrawnObject;
 import utopia_gameobjects.DimensionalDrawnObject;
 import utopia_gameobjects.DrawnObject;
+import utopia_graphic.RenderGroup;
+import utopia_graphic.RenderState;
 import utopia_handleds.Collidable;
 import utopia_handleds.Drawable;
 import utopia_utility.CollisionType;
@@ -84,15 +87,7 @@ public class BasicCamera extends BasicPhysicDrawnObject
 		// Uses transformations that are opposite to the 
 		// usual transformations
 		AffineTransform trans = g2d.getTransform();
-		
-		// Translates the origin to the right position
-		g2d.translate(getOriginX(), getOriginY());
-		// scales it depending on it's xscale and yscale
-		g2d.scale(1/getXScale(), 1/getYScale());
-		// rotates it depending on its angle
-		g2d.rotate(Math.toRadians((getAngle())));
-		// Translates the sprite to the object's position
-		g2d.translate(-getX(), -getY());
+		g2d.transform(getCameraTransformation());
 		
 		// Adds the opposing transformations
 		// TODO: Did not work, try to find another way to do this
@@ -106,6 +101,17 @@ public class BasicCamera extends BasicPhysicDrawnObject
 		//drawSelfAsContainer(g2d);
 	}
 	
+	@Override
+	public RenderState getRenderState()
+	{
+		if (this.drawer == null)
+			return null;
+		
+		// Records the content the camera sees
+		return new RenderGroup(getCameraTransformation(), 
+				this.drawer.captureRenderState().getStates());
+	}
+	
 	@Override
 	public int getWidth()
 	{
@@ -154,6 +160,30 @@ public class BasicCamera extends BasicPhysicDrawnObject
 		return this.drawer;
 	}
 	
+	/**
+	 * @return The area of the game world the camera currently shows. If the 
+	 * camera is rotated, the area contains the whole rotated view.
+	 */
+	public Rectangle2D getVisibleArea()
+	{
+		Rectangle2D.Double area = null;
+		Point2D.Double[] corners = {new Point2D.Double(0, 0), 
+				new Point2D.Double(getWidth(), 0), 
+				new Point2D.Double(0, getHeight()), 
+				new Point2D.Double(getWidth(), getHeight())};
+		
+		for (int i = 0; i < corners.length; i++)
+		{
+			Point2D.Double corner = transform(corners[i]);
+			if (area == null)
+				area = new Rectangle2D.Double(corner.getX(), corner.getY(), 0, 0);
+			else
+				area.add(corner);
+		}
+		
+		return area;
+	}
+	
 	/**
 	 * Tells whether an object should be drawn on the camera or not
 	 *
@@ -200,4 +230,22 @@ public class BasicCamera extends BasicPhysicDrawnObject
 		// Other objects are always drawn
 		return true;
 	}
+	
+	// Returns a transformation that is opposite to the camera's normal 
+	// transformation
+	private AffineTransform getCameraTransformation()
+	{
+		AffineTransform trans = new AffineTransform();
+		
+		// Translates the origin to the right position
+		trans.translate(getOriginX(), getOriginY());
+		// scales it depending on it's xscale and yscale
+		trans.scale(1/getXScale(), 1/getYScale());
+		// rotates it depending on its angle
+		trans.rotate(Math.toRadians((getAngle())));
+		// Translates the sprite to the object's position
+		trans.translate(-getX(), -getY());
+		
+		return trans;
+	}
 }
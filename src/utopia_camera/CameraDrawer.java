@@ -1,6 +1,17 @@
 package utopia_camera;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import utopia_gameobjects.DimensionalDrawnObject;
 import utopia_gameobjects.DrawnObject;
+import utopia_graphic.RenderState;
+import utopia_handleds.Drawable;
 import utopia_handleds.Handled;
 import utopia_handlers.DrawnObjectHandler;
 import utopia_utility.DepthConstants;
@@ -8,7 +19,13 @@ import utopia_utility.DepthConstants;
 /**
  * This class follows the camera and draws objects. It only draws objects that 
  * will be shown on screen. The later only works with CollidingDrawnObjects and 
- * dimensionaldrawnobjects since they can be checked.
+ * dimensionaldrawnobjects since they can be checked.<p>
+ * 
+ * Dimensionaldrawnobjects far from the camera are skipped with a visibility 
+ * grid so that they aren't visited at all. The grid only covers the 
+ * objects the drawer draws directly, so it is only used when the drawer 
+ * has a single depth layer. With more layers, the objects are drawn by the 
+ * layers and each object is checked separately.
  *
  * @author Mikko Hilpinen.
  *         Created 16.6.2013.
@@ -19,6 +36,21 @@ public class CameraDrawer extends DrawnObjectHandler
 	// ATTRIBUTES	----------------------------------------------------
 	
 	private BasicCamera camera;
+	// The grid is only used when the objects are drawn directly (null 
+	// otherwise)
+	private VisibilityGrid grid;
+	// The order in which the objects were added. Objects with the same 
+	// depth are drawn in this order, like in the handler. Only used with 
+	// the grid.
+	private IdentityHashMap<DrawnObject, Long> addorders;
+	// The objects that aren't in the grid and are always checked
+	private Set<DrawnObject> ungriddedobjects;
+	private long nextaddorder;
+	
+	/**
+	 * The size of the cells used for finding the visible objects (pixels)
+	 */
+	public static final double GRIDCELLSIZE = 256;
 	
 	
 	// CONSTRUCTOR	----------------------------------------------------
@@ -30,7 +62,8 @@ public class CameraDrawer extends DrawnObjectHandler
 	 * @param autodeath Will the drawer die when it doesn't have anything to 
 	 * draw anymore
 	 * @param depthLayers How many layers of depth handling are needed. The 
-	 * less the content's depth changes, the more layers there should be. [1, 6]
+	 * less the content's depth changes, the more layers there should be. 
+	 * The visibility grid is only used with a single layer. [1, 6]
 	 * @param camera The camera that draws the drawer and that is used to check 
 	 * which objects should be drawn
 	 */
@@ -40,20 +73,222 @@ public class CameraDrawer extends DrawnObjectHandler
 		
 		// Initializes attributes
 		this.camera = camera;
+		this.nextaddorder = 0;
+		
+		// With multiple depth layers, the objects are drawn by the layers 
+		// and not by the drawer itself
+		if (depthLayers > 1)
+		{
+			this.grid = null;
+			this.addorders = null;
+			this.ungriddedobjects = null;
+		}
+		else
+		{
+			this.grid = new VisibilityGrid(GRIDCELLSIZE);
+			this.addorders = new IdentityHashMap<DrawnObject, Long>();
+			this.ungriddedobjects = Collections.newSetFromMap(
+					new IdentityHashMap<DrawnObject, Boolean>());
+		}
 	}
 	
 	
 	// IMPLEMENTED METHODS	--------------------------------------------
 	
 	@Override
-	public boolean handleObject(Handled h)
+	protected Handled[] selectDrawables(Handled[] snapshot)
+	{
+		if (this.grid == null)
+			return snapshot;
+		
+		// Only the objects near the camera and the objects outside the 
+		// grid are visited
+		Set<DimensionalDrawnObject> nearobjects = 
+				this.grid.findObjectsInArea(this.camera.getVisibleArea());
+		ArrayList<Candidate> candidates = new ArrayList<Candidate>(
+				nearobjects.size() + this.ungriddedobjects.size());
+		
+		synchronized (this.addorders)
+		{
+			for (DimensionalDrawnObject d : nearobjects)
+			{
+				addCandidate(d, candidates);
+			}
+			for (DrawnObject d : this.ungriddedobjects)
+			{
+				addCandidate(d, candidates);
+			}
+		}
+		
+		// The candidates are drawn in the same order as in the handler
+		Collections.sort(candidates, new CandidateSorter());
+		
+		Handled[] selected = new Handled[candidates.size()];
+		for (int i = 0; i < selected.length; i++)
+		{
+			selected[i] = candidates.get(i).object;
+		}
+		
+		return selected;
+	}
+	
+	@Override
+	protected boolean handleDrawable(Drawable d, List<RenderState> states)
 	{	
 		// Only handles (draws) objects that camera says should be drawn
-		if (!this.camera.objectShouldBeDrawn((DrawnObject) h))
+		if (!this.camera.objectShouldBeDrawn((DrawnObject) d))
 			return true;
 		
-		super.handleObject(h);
+		super.handleDrawable(d, states);
 		
 		return true;
 	}
+	
+	@Override
+	protected void addHandled(Handled h)
+	{
+		super.addHandled(h);
+		
+		// The objects are tracked for the grid as well
+		if (this.grid != null && h instanceof DrawnObject)
+			addToGrid((DrawnObject) h);
+	}
+	
+	@Override
+	protected void addHandleds(Collection<? extends Handled> handleds)
+	{
+		super.addHandleds(handleds);
+		
+		if (this.grid == null)
+			return;
+		
+		for (Handled h : handleds)
+		{
+			if (h instanceof DrawnObject)
+				addToGrid((DrawnObject) h);
+		}
+	}
+	
+	@Override
+	public void removeHandled(Handled h)
+	{
+		super.removeHandled(h);
+		
+		if (this.grid != null && h instanceof DrawnObject)
+			removeFromGrid((DrawnObject) h);
+	}
+	
+	@Override
+	public void removeHandleds(Collection<? extends Handled> handleds)
+	{
+		super.removeHandleds(handleds);
+		
+		if (this.grid == null)
+			return;
+		
+		for (Handled h : handleds)
+		{
+			if (h instanceof DrawnObject)
+				removeFromGrid((DrawnObject) h);
+		}
+	}
+	
+	@Override
+	public void removeAllHandleds()
+	{
+		super.removeAllHandleds();
+		
+		if (this.grid == null)
+			return;
+		
+		synchronized (this.addorders)
+		{
+			for (DrawnObject d : this.addorders.keySet())
+			{
+				if (d instanceof DimensionalDrawnObject)
+					this.grid.remove((DimensionalDrawnObject) d);
+			}
+			
+			this.addorders.clear();
+			this.ungriddedobjects.clear();
+		}
+	}
+	
+	
+	// OTHER METHODS	------------------------------------------------
+	
+	private void addToGrid(DrawnObject d)
+	{
+		synchronized (this.addorders)
+		{
+			if (this.addorders.containsKey(d))
+				return;
+			
+			this.addorders.put(d, this.nextaddorder ++);
+			
+			if (!(d instanceof DimensionalDrawnObject))
+				this.ungriddedobjects.add(d);
+		}
+		
+		if (d instanceof DimensionalDrawnObject)
+			this.grid.add((DimensionalDrawnObject) d);
+	}
+	
+	private void removeFromGrid(DrawnObject d)
+	{
+		synchronized (this.addorders)
+		{
+			if (this.addorders.remove(d) == null)
+				return;
+			
+			this.ungriddedobjects.remove(d);
+		}
+		
+		if (d instanceof DimensionalDrawnObject)
+			this.grid.remove((DimensionalDrawnObject) d);
+	}
+	
+	// Must be called while the add orders are locked
+	private void addCandidate(DrawnObject d, List<Candidate> candidates)
+	{
+		if (d.isDead())
+			return;
+		
+		Long addorder = this.addorders.get(d);
+		if (addorder != null)
+			candidates.add(new Candidate(d, addorder));
+	}
+	
+	
+	// SUBCLASSES	----------------------------------------------------
+	
+	// Candidates remember the depth of the object so that the sorting 
+	// isn't affected if the depth changes in another thread
+	private static class Candidate
+	{
+		private DrawnObject object;
+		private int depth;
+		private long addorder;
+		
+		public Candidate(DrawnObject object, long addorder)
+		{
+			this.object = object;
+			this.depth = object.getDepth();
+			this.addorder = addorder;
+		}
+	}
+	
+	// Deeper objects are drawn first, like in the handler. Objects with the 
+	// same depth are drawn in the order they were added.
+	private static class CandidateSorter implements Comparator<Candidate>
+	{
+		@Override
+		public int compare(Candidate c1, Candidate c2)
+		{
+			if (c1.depth != c2.depth)
+				return c2.depth - c1.depth;
+			
+			return Long.compare(c1.addorder, c2.addorder);
+		}
+	}
 }
@@ -0,0 +1,331 @@
+package utopia_camera;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import utopia_gameobjects.DimensionalDrawnObject;
+import utopia_listeners.TransformationListener;
+
+/**
+ * VisibilityGrid divides the game world into square cells and remembers 
+ * which objects are in which cells. The objects that are in a certain area 
+ * can then be found without checking every object. The objects are moved 
+ * between the cells when they inform of their transformations, which 
+ * includes resizing when their sprites change.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ * @see CameraDrawer
+ */
+public class VisibilityGrid
+{
+	// ATTRIBUTES	-----------------------------------------------------
+	
+	private double cellsize;
+	private HashMap<Long, ArrayList<Entry>> cells;
+	private IdentityHashMap<DimensionalDrawnObject, Entry> entries;
+	// The entries whose objects have transformed since the last search
+	private ConcurrentLinkedQueue<Entry> movedentries;
+	private Set<DimensionalDrawnObject> foundobjects;
+	private int searchessincesweep;
+	
+	// How many searches there are between the checks for dead objects
+	private static final int SWEEPINTERVAL = 256;
+	
+	
+	// CONSTRUCTOR	-----------------------------------------------------
+	
+	/**
+	 * Creates a new empty grid
+	 *
+	 * @param cellsize The width and height of a single cell (> 0). The 
+	 * cells should be about as large as the largest common objects.
+	 */
+	public VisibilityGrid(double cellsize)
+	{
+		// Initializes attributes
+		this.cellsize = cellsize;
+		this.cells = new HashMap<Long, ArrayList<Entry>>();
+		this.entries = new IdentityHashMap<DimensionalDrawnObject, Entry>();
+		this.movedentries = new ConcurrentLinkedQueue<Entry>();
+		this.foundobjects = Collections.newSetFromMap(
+				new IdentityHashMap<DimensionalDrawnObject, Boolean>());
+		this.searchessincesweep = 0;
+	}
+	
+	
+	// OTHER METHODS	-------------------------------------------------
+	
+	/**
+	 * Adds an object to the grid. The grid follows the object's 
+	 * transformations until it is removed or dies.
+	 *
+	 * @param d The object to be added
+	 */
+	public void add(DimensionalDrawnObject d)
+	{
+		Entry entry;
+		synchronized (this)
+		{
+			if (this.entries.containsKey(d))
+				return;
+			
+			entry = new Entry(d);
+			this.entries.put(d, entry);
+		}
+		
+		// The object is placed to the cells at the next search
+		this.movedentries.offer(entry);
+		d.getTransformationListenerHandler().addListener(entry);
+	}
+	
+	/**
+	 * Removes an object from the grid
+	 *
+	 * @param d The object to be removed
+	 */
+	public synchronized void remove(DimensionalDrawnObject d)
+	{
+		Entry entry = this.entries.remove(d);
+		if (entry != null)
+		{
+			removeFromCells(entry);
+			entry.kill();
+		}
+	}
+	
+	/**
+	 * Finds the objects that may be inside the given area. The objects are 
+	 * checked using their largest possible extent so some objects that are 
+	 * near the area may be included as well.
+	 *
+	 * @param area The area that is searched
+	 * @return The objects that may be inside the area. The set is reused in 
+	 * the next search so it shouldn't be stored.
+	 */
+	public synchronized Set<DimensionalDrawnObject> findObjectsInArea(
+			Rectangle2D area)
+	{
+		// Dead objects that are far away are removed every once in a while
+		this.searchessincesweep ++;
+		if (this.searchessincesweep >= SWEEPINTERVAL)
+		{
+			this.searchessincesweep = 0;
+			for (Entry entry : this.entries.values())
+			{
+				if (entry.object.isDead())
+					this.movedentries.offer(entry);
+			}
+		}
+		
+		updateMovedEntries();
+		
+		this.foundobjects.clear();
+		
+		int mincx = toCell(area.getMinX());
+		int mincy = toCell(area.getMinY());
+		int maxcx = toCell(area.getMaxX());
+		int maxcy = toCell(area.getMaxY());
+		
+		// If the area is very large, it's faster to check all the objects
+		if ((long) (maxcx - mincx + 1) * (maxcy - mincy + 1) > this.cells.size())
+		{
+			for (Entry entry : this.entries.values())
+			{
+				checkEntry(entry, area);
+			}
+		}
+		else
+		{
+			for (int cx = mincx; cx <= maxcx; cx++)
+			{
+				for (int cy = mincy; cy <= maxcy; cy++)
+				{
+					ArrayList<Entry> cell = this.cells.get(getKey(cx, cy));
+					if (cell == null)
+						continue;
+					
+					for (int i = 0; i < cell.size(); i++)
+					{
+						checkEntry(cell.get(i), area);
+					}
+				}
+			}
+		}
+		
+		return this.foundobjects;
+	}
+	
+	private void checkEntry(Entry entry, Rectangle2D area)
+	{
+		if (!entry.object.isDead() && area.intersects(entry.minx, entry.miny, 
+				entry.maxx - entry.minx, entry.maxy - entry.miny))
+			this.foundobjects.add(entry.object);
+	}
+	
+	// Moves the transformed objects to their new cells
+	private void updateMovedEntries()
+	{
+		Entry entry = this.movedentries.poll();
+		while (entry != null)
+		{
+			entry.moved = false;
+			
+			if (this.entries.get(entry.object) == entry)
+			{
+				removeFromCells(entry);
+				
+				if (entry.object.isDead())
+				{
+					this.entries.remove(entry.object);
+					entry.kill();
+				}
+				else
+					addToCells(entry);
+			}
+			
+			entry = this.movedentries.poll();
+		}
+	}
+	
+	private void addToCells(Entry entry)
+	{
+		// Uses the largest possible extent of the object
+		double range = entry.object.getMaxRangeFromOrigin();
+		entry.minx = entry.object.getX() - range;
+		entry.miny = entry.object.getY() - range;
+		entry.maxx = entry.object.getX() + range;
+		entry.maxy = entry.object.getY() + range;
+		
+		entry.mincx = toCell(entry.minx);
+		entry.mincy = toCell(entry.miny);
+		entry.maxcx = toCell(entry.maxx);
+		entry.maxcy = toCell(entry.maxy);
+		
+		for (int cx = entry.mincx; cx <= entry.maxcx; cx++)
+		{
+			for (int cy = entry.mincy; cy <= entry.maxcy; cy++)
+			{
+				Long key = getKey(cx, cy);
+				ArrayList<Entry> cell = this.cells.get(key);
+				if (cell == null)
+				{
+					cell = new ArrayList<Entry>();
+					this.cells.put(key, cell);
+				}
+				cell.add(entry);
+			}
+		}
+		
+		entry.incells = true;
+	}
+	
+	private void removeFromCells(Entry entry)
+	{
+		if (!entry.incells)
+			return;
+		
+		for (int cx = entry.mincx; cx <= entry.maxcx; cx++)
+		{
+			for (int cy = entry.mincy; cy <= entry.maxcy; cy++)
+			{
+				Long key = getKey(cx, cy);
+				ArrayList<Entry> cell = this.cells.get(key);
+				if (cell == null)
+					continue;
+				
+				cell.remove(entry);
+				if (cell.isEmpty())
+					this.cells.remove(key);
+			}
+		}
+		
+		entry.incells = false;
+	}
+	
+	private int toCell(double coordinate)
+	{
+		return (int) Math.floor(coordinate / this.cellsize);
+	}
+	
+	private static Long getKey(int cx, int cy)
+	{
+		return Long.valueOf(((long) cx << 32) | (cy & 0xffffffffL));
+	}
+	
+	
+	// SUBCLASSES	-----------------------------------------------------
+	
+	// Entries follow the transformations of a single object
+	private class Entry implements TransformationListener
+	{
+		// ATTRIBUTES	------------------------------------------------
+		
+		private DimensionalDrawnObject object;
+		private double minx, miny, maxx, maxy;
+		private int mincx, mincy, maxcx, maxcy;
+		private boolean incells, dead;
+		private volatile boolean moved;
+		
+		
+		// CONSTRUCTOR	------------------------------------------------
+		
+		public Entry(DimensionalDrawnObject object)
+		{
+			// Initializes attributes
+			this.object = object;
+			this.incells = false;
+			this.dead = false;
+			this.moved = true;
+		}
+		
+		
+		// IMPLEMENTED METHODS	----------------------------------------
+		
+		@Override
+		public void onTransformationEvent(TransformationEvent e)
+		{
+			// The entry is only queued once between the searches
+			if (!this.moved)
+			{
+				this.moved = true;
+				VisibilityGrid.this.movedentries.offer(this);
+			}
+		}
+		
+		@Override
+		public boolean isDead()
+		{
+			return this.dead || this.object.isDead();
+		}
+		
+		@Override
+		public void kill()
+		{
+			this.dead = true;
+		}
+		
+		@Override
+		public boolean isActive()
+		{
+			return true;
+		}
+		
+		@Override
+		public void activate()
+		{
+			// Entries are always active
+		}
+		
+		@Override
+		public void inactivate()
+		{
+			// Entries are always active
+		}
+	}
+}
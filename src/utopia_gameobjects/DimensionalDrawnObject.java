@@ -218,6 +218,8 @@ public abstract class DimensionalDrawnObject extends DrawnObject implements Phys
 			this.radius = r;
 		else
 			initializeDefaultRadius();
+		
+		informDimensionsChanged();
 	}
 	
 	
@@ -8,7 +8,9 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Point2D;
 
-import utopia_handleds.Drawable;
+import utopia_graphic.RenderState;
+import utopia_handleds.SnapshotDrawable;
+import utopia_handlers.StepHandler;
 import utopia_handlers.TransformationListenerHandler;
 import utopia_listeners.TransformationListener.TransformationAxis;
 import utopia_listeners.TransformationListener.TransformationEvent;
@@ -27,7 +29,7 @@ import utopia_worlds.Area;
  * @author Mikko Hilpinen.
  * @since 26.11.2012.
  */
-public abstract class DrawnObject extends GameObject implements Drawable
+public abstract class DrawnObject extends GameObject implements SnapshotDrawable
 {	
 	// ATTRIBUTES	-------------------------------------------------------
 	
@@ -38,6 +40,11 @@ public abstract class DrawnObject extends GameObject implements Drawable
 	private AffineTransform currenttransformation;
 	private boolean transformationneedsupdating;
 	private TransformationListenerHandler listenerhandler;
+	// The position before the latest fixed step that moved the object
+	private double previousx, previousy;
+	private long laststepnumber;
+	// The stephandler whose steps move the object (optional)
+	private StepHandler stephandler;
 	
 	
 	// CONSTRUCTOR	-------------------------------------------------------
@@ -59,6 +66,13 @@ public abstract class DrawnObject extends GameObject implements Drawable
 		// Initializes the attributes
 		this.x = x;
 		this.y = y;
+		this.previousx = x;
+		this.previousy = y;
+		this.laststepnumber = -1;
+		if (area.getActorHandler() != null)
+			this.stephandler = area.getActorHandler().getStepHandler();
+		else
+			this.stephandler = null;
 		this.xscale = 1;
 		this.yscale = 1;
 		this.xshear = 0;
@@ -72,7 +86,9 @@ public abstract class DrawnObject extends GameObject implements Drawable
 		this.currentdeterminant = 0;
 		this.transformationneedsupdating = true;
 		
-		this.listenerhandler = new TransformationListenerHandler(false, null);
+		// Only this object informs the listeners so no locking is needed
+		this.listenerhandler = new TransformationListenerHandler(false, false, 
+				null);
 		
 		// Adds the object to the drawer (if possible)
 		if (area.getDrawer() != null)
@@ -147,9 +163,8 @@ public abstract class DrawnObject extends GameObject implements Drawable
 		this.currenttransformation = g2d.getTransform();
 		*/
 		
-		// Updates the transformation and uses it to transform the object
-		updateTransformation();
-		g2d.transform(this.currenttransformation);
+		// Transforms the object
+		g2d.transform(getDrawTransformation());
 		
 		// Finally draws the object
 		drawSelfBasic(g2d);
@@ -159,6 +174,15 @@ public abstract class DrawnObject extends GameObject implements Drawable
 		g2d.setComposite(originalcomposite);
 	}
 	
+	@Override
+	public RenderState getRenderState()
+	{
+		// At default the object can't be recorded since the content of 
+		// drawSelfBasic is unknown. Subclasses that only draw a sprite 
+		// should override this.
+		return null;
+	}
+	
 	@Override
 	public int getDepth()
 	{
@@ -421,6 +445,7 @@ public abstract class DrawnObject extends GameObject implements Drawable
 	{
 		double oldx = this.x;
 		
+		rememberPreviousPosition();
 		this.x = x;
 		this.transformationneedsupdating = true;
 		
@@ -439,6 +464,7 @@ public abstract class DrawnObject extends GameObject implements Drawable
 	{
 		double oldy = this.y;
 		
+		rememberPreviousPosition();
 		this.y = y;
 		this.transformationneedsupdating = true;
 		
@@ -517,6 +543,19 @@ public abstract class DrawnObject extends GameObject implements Drawable
 	
 	// OTHER METHODS	---------------------------------------------------
 	
+	/**
+	 * Informs the transformation listeners that the object's size or origin 
+	 * has changed. This should be called whenever the object's dimensions 
+	 * change without a transformation, like when the object starts to use 
+	 * another sprite. Sprite drawers call this automatically for their 
+	 * users.
+	 */
+	public void informDimensionsChanged()
+	{
+		this.listenerhandler.onTransformationEvent(new TransformationEvent(
+				TransformationType.RESIZING, TransformationAxis.Z, 0, 0));
+	}
+	
 	// Restores the angle to between 0 and 360
 	private void checkAngle()
 	{
@@ -866,6 +905,33 @@ public abstract class DrawnObject extends GameObject implements Drawable
 		*/
 	}
 	
+	/**
+	 * @return The transformation used when the object is drawn. If the 
+	 * object moved during the latest fixed step, the transformation places 
+	 * the object between its previous and current positions. The returned 
+	 * transformation must not be modified.
+	 */
+	protected AffineTransform getDrawTransformation()
+	{
+		updateTransformation();
+		
+		if (this.stephandler == null)
+			return this.currenttransformation;
+		
+		double interpolation = this.stephandler.getInterpolationAlpha();
+		if (interpolation < 1 && 
+				this.laststepnumber == this.stephandler.getStepNumber())
+		{
+			AffineTransform interpolated = AffineTransform.getTranslateInstance(
+					(this.previousx - this.x) * (1 - interpolation), 
+					(this.previousy - this.y) * (1 - interpolation));
+			interpolated.concatenate(this.currenttransformation);
+			return interpolated;
+		}
+		
+		return this.currenttransformation;
+	}
+	
 	/**
 	 * Tells the object that it needs to update its transformations. This 
 	 * should be used by object that depend on other objects' transformations
@@ -915,6 +981,24 @@ public abstract class DrawnObject extends GameObject implements Drawable
 		g2d.setColor(new Color(0, 0, 0));
 	}
 	
+	// Remembers the position the object had before the current step so that 
+	// the object can be drawn between the steps
+	private void rememberPreviousPosition()
+	{
+		// Without a stephandler, the object isn't drawn between the steps
+		if (this.stephandler == null)
+			return;
+		
+		long step = this.stephandler.getStepNumber();
+		
+		if (step != this.laststepnumber)
+		{
+			this.previousx = this.x;
+			this.previousy = this.y;
+			this.laststepnumber = step;
+		}
+	}
+	
 	// Updates the current transformation value
 	private void updateTransformation()
 	{		
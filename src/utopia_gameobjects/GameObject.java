@@ -1,22 +1,32 @@
 package utopia_gameobjects;
 
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import utopia_handleds.Handled;
+import utopia_handleds.HandledOwner;
+import utopia_handleds.OwnedHandled;
 import utopia_worlds.Area;
 
 /**
  * GameObject represents any game entity. All of the gameobjects can be created, 
  * handled and killed. Pretty much any visible or invisible object in a game 
- * that can become an 'object' of an action should inherit this class.
+ * that can become an 'object' of an action should inherit this class.<p>
+ * 
+ * GameObjects inform their handlers when they are killed. Subclasses that 
+ * can die in other ways as well should inform the handlers with 
+ * informOwnersAboutDeath().
  *
  * @author Mikko Hilpinen.
  * @since 11.7.2013.
  */
-public abstract class GameObject implements Handled
+public abstract class GameObject implements OwnedHandled
 {
 	// ATTRIBUTES	-----------------------------------------------------
 	
 	private boolean dead;
+	private CopyOnWriteArrayList<HandledOwner> owners;
+	// Informs the owners when another object dies (optional)
+	private DeathRelay deathrelay;
 	
 	
 	// CONSTRUCTOR	-----------------------------------------------------
@@ -29,6 +39,8 @@ public abstract class GameObject implements Handled
 	{
 		// Initializes attributes
 		this.dead = false;
+		this.owners = new CopyOnWriteArrayList<HandledOwner>();
+		this.deathrelay = null;
 		
 		// Adds the object to the handler(s)
 		if (area != null)
@@ -48,6 +60,24 @@ public abstract class GameObject implements Handled
 	public void kill()
 	{
 		this.dead = true;
+		informOwnersAboutDeath();
+		
+		// The other object doesn't need to keep this object alive anymore
+		DeathRelay relay = this.deathrelay;
+		if (relay != null)
+			relay.detach();
+	}
+	
+	@Override
+	public void addOwner(HandledOwner owner)
+	{
+		this.owners.addIfAbsent(owner);
+	}
+	
+	@Override
+	public void removeOwner(HandledOwner owner)
+	{
+		this.owners.remove(owner);
 	}
 	
 	@Override
@@ -58,4 +88,70 @@ public abstract class GameObject implements Handled
 			status = "dead ";
 		return status + getClass().getName();
 	}
+	
+	
+	// OTHER METHODS	-------------------------------------------------
+	
+	/**
+	 * Informs the handlers that hold the object that the object has died. 
+	 * This is done automatically when the object is killed.
+	 */
+	protected void informOwnersAboutDeath()
+	{
+		for (HandledOwner owner : this.owners)
+		{
+			owner.onHandledDeath(this);
+		}
+	}
+	
+	/**
+	 * Makes the object inform its handlers about its death when the given 
+	 * object dies. This should be used by objects that are considered dead 
+	 * when another object is dead.
+	 *
+	 * @param other The object whose death also means this object's death
+	 */
+	protected void informOwnersAboutDeathOf(OwnedHandled other)
+	{
+		// Only a single object is followed at a time
+		if (this.deathrelay != null)
+			this.deathrelay.detach();
+		
+		if (other == null)
+			this.deathrelay = null;
+		else
+		{
+			this.deathrelay = new DeathRelay(other);
+			other.addOwner(this.deathrelay);
+		}
+	}
+	
+	
+	// SUBCLASSES	-----------------------------------------------------
+	
+	// DeathRelay informs the object's owners when another object dies. The 
+	// relay removes itself from the other object once it isn't needed.
+	private class DeathRelay implements HandledOwner
+	{
+		private OwnedHandled other;
+		
+		public DeathRelay(OwnedHandled other)
+		{
+			this.other = other;
+		}
+		
+		@Override
+		public void onHandledDeath(Handled h)
+		{
+			informOwnersAboutDeath();
+			detach();
+		}
+		
+		public void detach()
+		{
+			this.other.removeOwner(this);
+			if (GameObject.this.deathrelay == this)
+				GameObject.this.deathrelay = null;
+		}
+	}
 }
@@ -0,0 +1,194 @@
+package utopia_graphic;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DirtyRegionFinder compares two recorded states of the same scene and 
+ * finds the areas where they differ. Only those areas need to be drawn 
+ * again when the scene changes from one state to the other.<p>
+ * 
+ * The states are compared in drawing order. Groups with the same 
+ * transformation are compared state by state, but if a group's 
+ * transformation changes (when a camera moves, for example), or if a 
+ * changed state covers an unknown area, the whole scene needs to be drawn.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ * @see RenderState#getBounds()
+ */
+public class DirtyRegionFinder
+{
+	// ATTRIBUTES	-----------------------------------------------------
+	
+	/**
+	 * How many separate areas there can be at most. If there would be more, 
+	 * the areas are combined.
+	 */
+	public static final int MAXREGIONS = 8;
+	
+	// How many changed states there can be before the whole scene is 
+	// simply drawn again
+	private static final int MAXCHANGES = 64;
+	
+	
+	// CONSTRUCTOR	-----------------------------------------------------
+	
+	private DirtyRegionFinder()
+	{
+		// The interface is static
+	}
+	
+	
+	// OTHER METHODS	-------------------------------------------------
+	
+	/**
+	 * Finds the areas that need to be drawn again when the scene changes 
+	 * from the previous state to the current one
+	 *
+	 * @param previous The state that was drawn last time (null if nothing 
+	 * was drawn)
+	 * @param current The state that will be drawn
+	 * @return The areas that have changed (empty if nothing changed) or null 
+	 * if the whole scene should be drawn again
+	 */
+	public static List<Rectangle> findDirtyRegions(RenderState previous, 
+			RenderState current)
+	{
+		if (previous == null || current == null)
+			return null;
+		
+		ArrayList<Rectangle2D> changes = new ArrayList<Rectangle2D>();
+		if (!compare(previous, current, null, changes))
+			return null;
+		
+		return merge(changes);
+	}
+	
+	// Adds the areas where the states differ. Returns false if the whole 
+	// scene needs to be drawn.
+	private static boolean compare(RenderState previous, RenderState current, 
+			AffineTransform transform, List<Rectangle2D> changes)
+	{
+		// Groups with the same transformation are compared state by state
+		if (previous instanceof RenderGroup && current instanceof RenderGroup)
+		{
+			RenderGroup previousgroup = (RenderGroup) previous;
+			RenderGroup currentgroup = (RenderGroup) current;
+			
+			if (!previousgroup.hasTransform(currentgroup.getTransform()))
+				return false;
+			
+			AffineTransform grouptransform = transform;
+			if (currentgroup.getTransform() != null)
+			{
+				grouptransform = new AffineTransform();
+				if (transform != null)
+					grouptransform.concatenate(transform);
+				grouptransform.concatenate(currentgroup.getTransform());
+			}
+			
+			List<RenderState> previousstates = previousgroup.getStates();
+			List<RenderState> currentstates = currentgroup.getStates();
+			int statenumber = Math.max(previousstates.size(), 
+					currentstates.size());
+			
+			for (int i = 0; i < statenumber; i++)
+			{
+				RenderState p = null, c = null;
+				if (i < previousstates.size())
+					p = previousstates.get(i);
+				if (i < currentstates.size())
+					c = currentstates.get(i);
+				
+				if (p == null || c == null)
+				{
+					if (!addChange(p, grouptransform, changes) || 
+							!addChange(c, grouptransform, changes))
+						return false;
+				}
+				else if (!compare(p, c, grouptransform, changes))
+					return false;
+			}
+			
+			return true;
+		}
+		
+		if (previous.equals(current))
+			return true;
+		
+		// Both the old and the new area need to be drawn
+		return addChange(previous, transform, changes) && 
+				addChange(current, transform, changes);
+	}
+	
+	private static boolean addChange(RenderState state, 
+			AffineTransform transform, List<Rectangle2D> changes)
+	{
+		if (state == null)
+			return true;
+		
+		Rectangle2D bounds = state.getBounds();
+		if (bounds == null || changes.size() >= MAXCHANGES)
+			return false;
+		
+		if (transform != null)
+			bounds = transform.createTransformedShape(bounds).getBounds2D();
+		
+		changes.add(bounds);
+		return true;
+	}
+	
+	// Combines the overlapping areas and makes sure there aren't too many 
+	// of them
+	private static List<Rectangle> merge(List<Rectangle2D> changes)
+	{
+		ArrayList<Rectangle> regions = new ArrayList<Rectangle>();
+		for (Rectangle2D change : changes)
+		{
+			if (change.isEmpty())
+				continue;
+			
+			// Grows the area a little so that rounding doesn't leave anything 
+			// out
+			Rectangle region = change.getBounds();
+			region.grow(1, 1);
+			regions.add(region);
+		}
+		
+		boolean merged = true;
+		while (merged)
+		{
+			merged = false;
+			for (int i = 0; i < regions.size() && !merged; i++)
+			{
+				for (int j = i + 1; j < regions.size(); j++)
+				{
+					if (regions.get(i).intersects(regions.get(j)))
+					{
+						regions.get(i).add(regions.remove(j));
+						merged = true;
+						break;
+					}
+				}
+			}
+		}
+		
+		if (regions.size() > MAXREGIONS)
+		{
+			Rectangle union = new Rectangle(regions.get(0));
+			for (int i = 1; i < regions.size(); i++)
+			{
+				union.add(regions.get(i));
+			}
+			
+			regions.clear();
+			regions.add(union);
+		}
+		
+		return regions;
+	}
+}
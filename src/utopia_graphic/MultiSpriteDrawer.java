@@ -67,10 +67,13 @@ public class MultiSpriteDrawer extends SpriteDrawer
 			this.currentid = 0;
 		
 		// If the index is too large / small, loops through the list
+		int oldid = this.currentid;
 		this.currentid = Math.abs(newIndex % this.sprites.length);
 		
 		if (resetImageIndex)
 			setImageIndex(0);
+		if (this.currentid != oldid)
+			informSpriteChanged();
 	}
 	
 	/**
@@ -0,0 +1,162 @@
+package utopia_graphic;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * RenderGroup is a group of render states that are drawn in order using a 
+ * common transformation. Groups are used for recording the contents of 
+ * drawablehandlers and cameras.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ */
+public class RenderGroup implements RenderState
+{
+	// ATTRIBUTES	-----------------------------------------------------
+	
+	private final AffineTransform transform;
+	private final List<RenderState> states;
+	private Rectangle2D bounds;
+	private boolean boundsknown;
+	
+	
+	// CONSTRUCTOR	-----------------------------------------------------
+	
+	/**
+	 * Creates a new group
+	 *
+	 * @param transform The transformation used for drawing the states 
+	 * (null if no transformation is needed). The transformation is copied.
+	 * @param states The states in the order they are drawn. The list is 
+	 * copied.
+	 */
+	public RenderGroup(AffineTransform transform, List<RenderState> states)
+	{
+		// Initializes attributes
+		if (transform == null || transform.isIdentity())
+			this.transform = null;
+		else
+			this.transform = new AffineTransform(transform);
+		this.states = Collections.unmodifiableList(
+				new ArrayList<RenderState>(states));
+		this.bounds = null;
+		this.boundsknown = false;
+	}
+	
+	
+	// IMPLEMENTED METHODS	---------------------------------------------
+	
+	@Override
+	public void draw(Graphics2D g2d)
+	{
+		AffineTransform originaltransform = null;
+		if (this.transform != null)
+		{
+			originaltransform = g2d.getTransform();
+			g2d.transform(this.transform);
+		}
+		
+		for (RenderState state : this.states)
+		{
+			state.draw(g2d);
+		}
+		
+		if (originaltransform != null)
+			g2d.setTransform(originaltransform);
+	}
+	
+	@Override
+	public Rectangle2D getBounds()
+	{
+		// The bounds are only calculated when needed
+		if (!this.boundsknown)
+		{
+			Rectangle2D union = null;
+			for (RenderState state : this.states)
+			{
+				Rectangle2D statebounds = state.getBounds();
+				// If any of the areas is unknown, so is the whole area
+				if (statebounds == null)
+				{
+					union = null;
+					break;
+				}
+				
+				if (union == null)
+					union = (Rectangle2D) statebounds.clone();
+				else
+					union.add(statebounds);
+			}
+			
+			if (union != null && this.transform != null)
+				union = this.transform.createTransformedShape(union).getBounds2D();
+			// An empty group covers no area
+			if (union == null && this.states.isEmpty())
+				union = new Rectangle2D.Double();
+			
+			this.bounds = union;
+			this.boundsknown = true;
+		}
+		
+		return this.bounds;
+	}
+	
+	@Override
+	public boolean equals(Object other)
+	{
+		if (!(other instanceof RenderGroup))
+			return false;
+		
+		RenderGroup othergroup = (RenderGroup) other;
+		return hasTransform(othergroup.transform) && 
+				this.states.equals(othergroup.states);
+	}
+	
+	@Override
+	public int hashCode()
+	{
+		return this.states.hashCode();
+	}
+	
+	
+	// GETTERS & SETTERS	---------------------------------------------
+	
+	/**
+	 * @return The states in the group in the order they are drawn
+	 */
+	public List<RenderState> getStates()
+	{
+		return this.states;
+	}
+	
+	/**
+	 * @return The transformation used for drawing the states or null if 
+	 * there is no transformation
+	 */
+	AffineTransform getTransform()
+	{
+		return this.transform;
+	}
+	
+	
+	// OTHER METHODS	-------------------------------------------------
+	
+	/**
+	 * Checks whether the group uses the given transformation
+	 *
+	 * @param transform The transformation (null means no transformation)
+	 * @return Does the group use the given transformation
+	 */
+	boolean hasTransform(AffineTransform transform)
+	{
+		if (this.transform == null)
+			return transform == null;
+		
+		return this.transform.equals(transform);
+	}
+}
@@ -0,0 +1,30 @@
+package utopia_graphic;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * RenderState is an immutable record of how an object looked at a certain 
+ * moment. Render states can be drawn in another thread while the object 
+ * itself keeps changing.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ * @see utopia_handleds.SnapshotDrawable
+ */
+public interface RenderState
+{
+	/**
+	 * Draws the recorded state
+	 *
+	 * @param g2d The graphics object that does the drawing
+	 */
+	public void draw(Graphics2D g2d);
+	
+	/**
+	 * @return The area the state covers when it is drawn or null if the 
+	 * area is unknown. Two equal states must cover the same area.
+	 * @see DirtyRegionFinder
+	 */
+	public Rectangle2D getBounds();
+}
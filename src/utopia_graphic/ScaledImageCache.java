@@ -0,0 +1,260 @@
+package utopia_graphic;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ScaledImageCache remembers scaled copies of sprite images so that sprites 
+ * that are drawn with the same scaling over and over again don't need to 
+ * be resampled each time. The scalings are rounded so that small changes 
+ * don't create new copies. The copies that haven't been used for the 
+ * longest time are forgotten when the cache grows too large.<p>
+ * 
+ * A copy is only made once the same scaling has been used twice so that 
+ * constantly changing scalings don't fill the cache.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ * @see Sprite#drawSubImage(Graphics2D, int, int, int)
+ */
+public class ScaledImageCache
+{
+	// ATTRIBUTES	-----------------------------------------------------
+	
+	/**
+	 * How many different scalings there are between two integer scalings
+	 */
+	public static final int SCALESTEPS = 64;
+	
+	// The copies in order of use, the least recently used first. The 
+	// scalings used only once have no image yet.
+	private static LinkedHashMap<Key, BufferedImage> images = 
+			new LinkedHashMap<Key, BufferedImage>(16, 0.75f, true);
+	private static long memorylimit = 64 * 1024 * 1024;
+	private static long usedmemory = 0;
+	// Marks the scalings whose copies would be too large to be cached
+	private static final BufferedImage UNCACHEABLE = 
+			new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+	
+	
+	// CONSTRUCTOR	-----------------------------------------------------
+	
+	private ScaledImageCache()
+	{
+		// The interface is static
+	}
+	
+	
+	// OTHER METHODS	-------------------------------------------------
+	
+	/**
+	 * Changes how much memory the cached images may use at most
+	 *
+	 * @param bytes How many bytes the images may use (0 disables the cache)
+	 */
+	public static synchronized void setMemoryLimit(long bytes)
+	{
+		memorylimit = Math.max(0, bytes);
+		
+		// The copies that were too large may fit now
+		Iterator<BufferedImage> iter = images.values().iterator();
+		while (iter.hasNext())
+		{
+			if (iter.next() == UNCACHEABLE)
+				iter.remove();
+		}
+		
+		removeExcess();
+	}
+	
+	/**
+	 * @return How many bytes the cached images currently use
+	 */
+	public static synchronized long getUsedMemory()
+	{
+		return usedmemory;
+	}
+	
+	/**
+	 * Forgets all the cached images
+	 */
+	public static synchronized void clear()
+	{
+		images.clear();
+		usedmemory = 0;
+	}
+	
+	/**
+	 * Forgets the cached images of the given sprite. This is done 
+	 * automatically when a sprite is killed.
+	 *
+	 * @param sprite The sprite whose images are forgotten
+	 * @see Sprite#kill()
+	 */
+	public static synchronized void removeImagesOf(Sprite sprite)
+	{
+		Iterator<Map.Entry<Key, BufferedImage>> iter = 
+				images.entrySet().iterator();
+		
+		while (iter.hasNext())
+		{
+			Map.Entry<Key, BufferedImage> entry = iter.next();
+			if (entry.getKey().sprite == sprite)
+			{
+				iter.remove();
+				usedmemory -= getSize(entry.getValue());
+			}
+		}
+	}
+	
+	/**
+	 * Finds a scaled copy of a sprite's subimage
+	 *
+	 * @param sprite The sprite the image belongs to
+	 * @param imageindex The index of the subimage
+	 * @param xscale How much the image is scaled horizontally (> 0)
+	 * @param yscale How much the image is scaled vertically (> 0)
+	 * @return A scaled copy of the image or null if there is no copy 
+	 * available and the image should be scaled while drawing
+	 */
+	static synchronized BufferedImage getScaledImage(Sprite sprite, 
+			int imageindex, double xscale, double yscale)
+	{
+		// Killed sprites aren't cached since their images would be kept
+		if (memorylimit == 0 || sprite.isDead())
+			return null;
+		
+		Key key = new Key(sprite, imageindex, 
+				(int) Math.round(xscale * SCALESTEPS), 
+				(int) Math.round(yscale * SCALESTEPS));
+		if (key.xsteps <= 0 || key.ysteps <= 0)
+			return null;
+		
+		// The first time the scaling is only remembered
+		if (!images.containsKey(key))
+		{
+			images.put(key, null);
+			removeExcess();
+			return null;
+		}
+		
+		BufferedImage scaled = images.get(key);
+		if (scaled == UNCACHEABLE)
+			return null;
+		
+		if (scaled == null)
+		{
+			// Copies that are too large are never made. The scaling is 
+			// remembered so that the size isn't checked again.
+			BufferedImage image = sprite.getSubImage(imageindex);
+			int width = getScaledLength(image.getWidth(), key.xsteps);
+			int height = getScaledLength(image.getHeight(), key.ysteps);
+			if (4l * width * height > memorylimit)
+			{
+				images.put(key, UNCACHEABLE);
+				return null;
+			}
+			
+			scaled = createScaledImage(image, width, height);
+			images.put(key, scaled);
+			usedmemory += getSize(scaled);
+			removeExcess();
+		}
+		
+		return scaled;
+	}
+	
+	private static int getScaledLength(int length, int steps)
+	{
+		return Math.max(1, (int) Math.round(length * steps / 
+				(double) SCALESTEPS));
+	}
+	
+	private static BufferedImage createScaledImage(BufferedImage image, 
+			int width, int height)
+	{
+		BufferedImage scaled = Sprite.createCompatibleImage(width, height, 
+				image.getColorModel().getTransparency());
+		Graphics2D g2d = scaled.createGraphics();
+		g2d.drawImage(image, 0, 0, width, height, null);
+		g2d.dispose();
+		
+		return scaled;
+	}
+	
+	// Forgets the least recently used images until the cache is small enough
+	private static void removeExcess()
+	{
+		Iterator<Map.Entry<Key, BufferedImage>> iter = 
+				images.entrySet().iterator();
+		
+		// The remembered scalings without images are limited as well
+		while (iter.hasNext() && (usedmemory > memorylimit || 
+				images.size() > 4096))
+		{
+			BufferedImage removed = iter.next().getValue();
+			iter.remove();
+			usedmemory -= getSize(removed);
+		}
+	}
+	
+	// The remembered scalings without a copy don't use any memory
+	private static long getSize(BufferedImage image)
+	{
+		if (image == null || image == UNCACHEABLE)
+			return 0;
+		
+		return 4l * image.getWidth() * image.getHeight();
+	}
+	
+	
+	// SUBCLASSES	-----------------------------------------------------
+	
+	private static class Key
+	{
+		// ATTRIBUTES	------------------------------------------------
+		
+		private Sprite sprite;
+		private int imageindex, xsteps, ysteps;
+		
+		
+		// CONSTRUCTOR	------------------------------------------------
+		
+		public Key(Sprite sprite, int imageindex, int xsteps, int ysteps)
+		{
+			// Initializes attributes
+			this.sprite = sprite;
+			this.imageindex = imageindex;
+			this.xsteps = xsteps;
+			this.ysteps = ysteps;
+		}
+		
+		
+		// IMPLEMENTED METHODS	----------------------------------------
+		
+		@Override
+		public boolean equals(Object other)
+		{
+			if (!(other instanceof Key))
+				return false;
+			
+			Key otherkey = (Key) other;
+			return this.sprite == otherkey.sprite && 
+					this.imageindex == otherkey.imageindex && 
+					this.xsteps == otherkey.xsteps && 
+					this.ysteps == otherkey.ysteps;
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			int hash = System.identityHashCode(this.sprite);
+			hash = 31 * hash + this.imageindex;
+			hash = 31 * hash + this.xsteps;
+			return 31 * hash + this.ysteps;
+		}
+	}
+}
@@ -59,5 +59,6 @@ public class SingleSpriteDrawer extends SpriteDrawer
 		
 		this.sprite = newSprite;
 		setImageIndex(0);
+		informSpriteChanged();
 	}
 }
@@ -1,5 +1,10 @@
 package utopia_graphic;
 
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -22,10 +27,16 @@ public class Sprite implements BankObject
 	// ATTRIBUTES	-------------------------------------------------------
 	
 	private BufferedImage[] images;
+	// The areas of the texture atlas the images are drawn from (optional)
+	private TextureAtlas.Region[] atlasregions;
 	
 	private int origX, origY, forcedWidth, forcedHeight;
 	private boolean dead, dimensionsSpecified;
 	
+	// The configuration of the screen the images are made compatible with 
+	// (null if headless or not yet initialized)
+	private static GraphicsConfiguration screenconfiguration = null;
+	
 	
 	// CONSTRUCTOR	-------------------------------------------------------
 	
@@ -56,6 +67,7 @@ public class Sprite implements BankObject
 		this.forcedHeight = 0;
 		this.forcedWidth = 0;
 		this.dimensionsSpecified = false;
+		this.atlasregions = null;
 		
 		// Loads the image
 		File img = new File("data/" + filename);
@@ -85,7 +97,10 @@ public class Sprite implements BankObject
 			int sx;
 			sx = i*sw;
 			
-			this.images[i] = strip.getSubimage(sx, 0, sw, strip.getHeight());
+			// The subimages are copied to images that are fast to draw on 
+			// the screen
+			this.images[i] = toCompatibleImage(
+					strip.getSubimage(sx, 0, sw, strip.getHeight()));
 		}
 		
 		// If an origin position was set to -1, sets it to the middle of the 
@@ -102,9 +117,11 @@ public class Sprite implements BankObject
 	@Override
 	public void kill()
 	{
-		// Doesn't do much since the image information will be released 
-		// automatically once the sprite is not held anywhere anymore
+		// The image information will be released automatically once the 
+		// sprite is not held anywhere anymore. The cache holds the sprite 
+		// though so the cached copies are forgotten.
 		this.dead = true;
+		ScaledImageCache.removeImagesOf(this);
 	}
 	
 	@Override
@@ -185,7 +202,8 @@ public class Sprite implements BankObject
 	// METHODS	------------------------------------------------------------
 	
 	/**
-	 * This method returns a single subimage from the sprite.
+	 * This method returns a single subimage from the sprite. The image is a 
+	 * separate image even if the sprite is drawn from a texture atlas.
 	 *
 	 * @param imageIndex The index of the image to be drawn [0, numberOfImages[
 	 * @return The subimage from the given index
@@ -200,6 +218,76 @@ public class Sprite implements BankObject
 		return this.images[imageIndex];
 	}
 	
+	/**
+	 * Draws a subimage of the sprite using the sprite's scaling. The graphics 
+	 * object stays scaled afterwards.
+	 *
+	 * @param g2d The graphics object that does the actual drawing
+	 * @param imageIndex The index of the drawn image [0, numberOfImages[
+	 * @param xtranslation How much the image is translated horizontally
+	 * @param ytranslation How much the image is translated vertically
+	 * @see #drawSubImage(Graphics2D, int, int, int, double, double)
+	 */
+	public void drawSubImage(Graphics2D g2d, int imageIndex, int xtranslation, 
+			int ytranslation)
+	{
+		drawSubImage(g2d, imageIndex, xtranslation, ytranslation, getXScale(), 
+				getYScale());
+	}
+	
+	/**
+	 * Draws a subimage of the sprite with the given scaling. If the drawing 
+	 * is only scaled and translated, a scaled copy of the image is drawn 
+	 * instead so that the image doesn't need to be resampled every time. 
+	 * The graphics object stays scaled afterwards.
+	 *
+	 * @param g2d The graphics object that does the actual drawing
+	 * @param imageIndex The index of the drawn image [0, numberOfImages[
+	 * @param xtranslation How much the image is translated horizontally
+	 * @param ytranslation How much the image is translated vertically
+	 * @param xscale How much the image is scaled horizontally
+	 * @param yscale How much the image is scaled vertically
+	 * @see ScaledImageCache
+	 */
+	public void drawSubImage(Graphics2D g2d, int imageIndex, int xtranslation, 
+			int ytranslation, double xscale, double yscale)
+	{
+		// Checks the given index and adjusts it if needed
+		if (imageIndex < 0 || imageIndex >= this.images.length)
+			imageIndex = Math.abs(imageIndex % this.images.length);
+		
+		g2d.scale(xscale, yscale);
+		AffineTransform transform = g2d.getTransform();
+		
+		// Rotated, sheared and flipped images are always drawn normally
+		if ((transform.getType() & ~(AffineTransform.TYPE_TRANSLATION | 
+				AffineTransform.TYPE_MASK_SCALE)) == 0 && 
+				transform.getScaleX() > 0 && transform.getScaleY() > 0 && 
+				(transform.getScaleX() != 1 || transform.getScaleY() != 1))
+		{
+			BufferedImage scaled = ScaledImageCache.getScaledImage(this, 
+					imageIndex, transform.getScaleX(), transform.getScaleY());
+			
+			if (scaled != null)
+			{
+				// The scaled copy is drawn without scaling
+				Point2D position = transform.transform(
+						new Point2D.Double(xtranslation, ytranslation), null);
+				g2d.setTransform(AffineTransform.getTranslateInstance(
+						position.getX(), position.getY()));
+				g2d.drawImage(scaled, 0, 0, null);
+				g2d.setTransform(transform);
+				return;
+			}
+		}
+		
+		if (this.atlasregions != null && this.atlasregions[imageIndex] != null)
+			this.atlasregions[imageIndex].draw(g2d, xtranslation, ytranslation);
+		else
+			g2d.drawImage(this.images[imageIndex], xtranslation, ytranslation, 
+					null);
+	}
+	
 	/**
 	 * Sets the sprite to have the given size.
 	 * 
@@ -228,6 +316,23 @@ public class Sprite implements BankObject
 		forceDimensions((int) (getWidth() * xScale), (int) (getHeight() * yScale));
 	}
 	
+	/**
+	 * Makes the sprite draw one of its images from a texture atlas. The 
+	 * separate image is still kept so that getSubImage returns an image 
+	 * that doesn't share its raster with the atlas page.
+	 *
+	 * @param imageIndex The index of the image
+	 * @param region The area of the atlas that contains the image
+	 * @see TextureAtlas
+	 */
+	void setAtlasRegion(int imageIndex, TextureAtlas.Region region)
+	{
+		if (this.atlasregions == null)
+			this.atlasregions = new TextureAtlas.Region[this.images.length];
+		
+		this.atlasregions[imageIndex] = region;
+	}
+	
 	private int getImageWidth()
 	{
 		return getSubImage(0).getWidth();
@@ -238,6 +343,54 @@ public class Sprite implements BankObject
 		return getSubImage(0).getHeight();
 	}
 	
+	// Copies the image to an image that has the same format as the screen 
+	// so that Java2D can draw it with the fast loops and cache it on the 
+	// video card. Subimages share the raster of the whole strip, which 
+	// prevents such caching.
+	private static BufferedImage toCompatibleImage(BufferedImage image)
+	{
+		BufferedImage compatible = createCompatibleImage(image.getWidth(), 
+				image.getHeight(), image.getColorModel().getTransparency());
+		
+		Graphics2D g2d = compatible.createGraphics();
+		g2d.drawImage(image, 0, 0, null);
+		g2d.dispose();
+		
+		return compatible;
+	}
+	
+	/**
+	 * Creates an empty image that has the same format as the screen
+	 *
+	 * @param width The width of the image
+	 * @param height The height of the image
+	 * @param transparency The transparency of the image
+	 * @return An image that is fast to draw on the screen
+	 * @see java.awt.Transparency
+	 */
+	public static BufferedImage createCompatibleImage(int width, int height, 
+			int transparency)
+	{
+		GraphicsConfiguration configuration = getScreenConfiguration();
+		
+		if (configuration != null)
+			return configuration.createCompatibleImage(width, height, 
+					transparency);
+		// Without a screen, uses a format that is still fast to draw
+		else
+			return new BufferedImage(width, height, 
+					BufferedImage.TYPE_INT_ARGB_PRE);
+	}
+	
+	private static GraphicsConfiguration getScreenConfiguration()
+	{
+		if (screenconfiguration == null && !GraphicsEnvironment.isHeadless())
+			screenconfiguration = GraphicsEnvironment.getLocalGraphicsEnvironment(
+					).getDefaultScreenDevice().getDefaultConfiguration();
+		
+		return screenconfiguration;
+	}
+	
 	// TODO: If you get bored, try to implement filters into the project
 	// check: http://docs.oracle.com/javase/tutorial/2d/images/drawimage.html
 }
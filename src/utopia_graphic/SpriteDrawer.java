@@ -44,7 +44,7 @@ public abstract class SpriteDrawer implements Actor
 	public SpriteDrawer(ActorHandler animator, DrawnObject user)
 	{
 		// Initializes the attributes
-		this.listenerhandler = new AnimationListenerHandler(false, null);
+		this.listenerhandler = new AnimationListenerHandler(false, false, null);
 		this.user = user;
 		
 		this.imageSpeed = 0.1;
@@ -183,6 +183,16 @@ public abstract class SpriteDrawer implements Actor
 	
 	// OTHER METHODS	---------------------------------------------------
 	
+	/**
+	 * Informs the user that its dimensions may have changed. Subclasses 
+	 * should call this whenever the drawn sprite is changed.
+	 */
+	protected void informSpriteChanged()
+	{
+		if (this.user != null)
+			this.user.informDimensionsChanged();
+	}
+	
 	/**
 	 * Draws the sprite. Should be called in the DrawnObject's drawSelfBasic 
 	 * method or in another similar method.
@@ -220,11 +230,8 @@ public abstract class SpriteDrawer implements Actor
 	public void drawSprite(Graphics2D g2d, int xtranslation, int ytranslation, 
 			int imageindex)
 	{
-		// Scales the sprite according to it's status
-		g2d.scale(getSprite().getXScale(), getSprite().getYScale());
-		// Draws the sprite
-		g2d.drawImage(getSprite().getSubImage(imageindex), xtranslation, 
-				ytranslation, null);
+		// Draws the sprite, scaled according to it's status
+		getSprite().drawSubImage(g2d, imageindex, xtranslation, ytranslation);
 	}
 	
 	// Handles the change of the image index
@@ -20,6 +20,8 @@ public class SpriteDrawerObject extends DrawnObject
 	
 	private SingleSpriteDrawer spriteDrawer;
 	private DrawnObject user;
+	// Subclasses that draw something else can't be recorded as a sprite
+	private boolean recordable;
 	
 	
 	// CONSTRUCTOR	-----------------------------------------------------
@@ -43,9 +45,14 @@ public class SpriteDrawerObject extends DrawnObject
 		this.user = user;
 		this.spriteDrawer = new SingleSpriteDrawer(sprite, 
 				area.getActorHandler(), this);
+		this.recordable = SpriteRenderState.drawsOnlySprite(getClass(), 
+				SpriteDrawerObject.class);
 		
 		if (user != null)
 			setPosition(user.getX(), user.getY());
+		
+		// The object dies with the user
+		informOwnersAboutDeathOf(user);
 	}
 	
 	
@@ -77,6 +84,19 @@ public class SpriteDrawerObject extends DrawnObject
 			this.spriteDrawer.drawSprite(g2d, 0, 0);
 	}
 	
+	@Override
+	public RenderState getRenderState()
+	{
+		// The object only draws the sprite so it can be recorded
+		if (!this.recordable || this.spriteDrawer == null || 
+				this.spriteDrawer.isDead())
+			return null;
+		
+		return new SpriteRenderState(getDrawTransformation(), 
+				this.spriteDrawer.getSprite(), 
+				this.spriteDrawer.getImageIndex(), getAlpha(), getDepth());
+	}
+	
 	@Override
 	public boolean isDead()
 	{
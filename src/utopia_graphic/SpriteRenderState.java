@@ -0,0 +1,155 @@
+package utopia_graphic;
+
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * SpriteRenderState records a single subimage of a sprite drawn with a 
+ * certain transformation and transparency.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ */
+public class SpriteRenderState implements RenderState
+{
+	// ATTRIBUTES	-----------------------------------------------------
+	
+	private final AffineTransform transform;
+	private final Sprite sprite;
+	private final int imageindex;
+	private final double xscale, yscale;
+	private final float alpha;
+	private final int depth;
+	private Rectangle2D bounds;
+	
+	
+	// CONSTRUCTOR	-----------------------------------------------------
+	
+	/**
+	 * Records the state of a sprite
+	 *
+	 * @param transform The transformation used when the sprite is drawn. The 
+	 * transformation is copied.
+	 * @param sprite The sprite that is drawn
+	 * @param imageindex The index of the drawn subimage
+	 * @param alpha The transparency of the sprite [0, 1]
+	 * @param depth The depth of the drawn object
+	 */
+	public SpriteRenderState(AffineTransform transform, Sprite sprite, 
+			int imageindex, float alpha, int depth)
+	{
+		// Initializes attributes
+		this.transform = new AffineTransform(transform);
+		this.sprite = sprite;
+		this.imageindex = imageindex;
+		this.xscale = sprite.getXScale();
+		this.yscale = sprite.getYScale();
+		this.alpha = alpha;
+		this.depth = depth;
+		this.bounds = null;
+	}
+	
+	
+	// IMPLEMENTED METHODS	---------------------------------------------
+	
+	@Override
+	public void draw(Graphics2D g2d)
+	{
+		// Remembers the previous transformation and transparency
+		AffineTransform originaltransform = g2d.getTransform();
+		Composite originalcomposite = g2d.getComposite();
+		
+		g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 
+				this.alpha));
+		g2d.transform(this.transform);
+		this.sprite.drawSubImage(g2d, this.imageindex, 0, 0, this.xscale, 
+				this.yscale);
+		
+		g2d.setTransform(originaltransform);
+		g2d.setComposite(originalcomposite);
+	}
+	
+	@Override
+	public Rectangle2D getBounds()
+	{
+		// The bounds are only calculated when needed
+		if (this.bounds == null)
+		{
+			BufferedImage image = this.sprite.getSubImage(this.imageindex);
+			this.bounds = this.transform.createTransformedShape(
+					new Rectangle2D.Double(0, 0, image.getWidth() * this.xscale, 
+					image.getHeight() * this.yscale)).getBounds2D();
+		}
+		
+		return this.bounds;
+	}
+	
+	@Override
+	public boolean equals(Object other)
+	{
+		if (!(other instanceof SpriteRenderState))
+			return false;
+		
+		SpriteRenderState otherstate = (SpriteRenderState) other;
+		return this.sprite == otherstate.sprite && 
+				this.imageindex == otherstate.imageindex && 
+				this.alpha == otherstate.alpha && 
+				this.xscale == otherstate.xscale && 
+				this.yscale == otherstate.yscale && 
+				this.transform.equals(otherstate.transform);
+	}
+	
+	@Override
+	public int hashCode()
+	{
+		int hash = System.identityHashCode(this.sprite);
+		hash = 31 * hash + this.imageindex;
+		return 31 * hash + this.transform.hashCode();
+	}
+	
+	
+	// GETTERS & SETTERS	---------------------------------------------
+	
+	/**
+	 * @return The depth of the drawn object
+	 */
+	public int getDepth()
+	{
+		return this.depth;
+	}
+	
+	
+	// OTHER METHODS	-------------------------------------------------
+	
+	/**
+	 * Checks whether the objects of the given class still draw themselves 
+	 * the way the given sprite drawing class does. Subclasses that override 
+	 * the drawing methods may draw more than a single sprite, so their 
+	 * state can't be recorded with a SpriteRenderState.
+	 *
+	 * @param objectclass The class of the object that would be recorded
+	 * @param spriteclass The class that only draws a single sprite
+	 * @return Are the drawing methods of the object class inherited from 
+	 * the sprite class (or its superclasses)
+	 */
+	public static boolean drawsOnlySprite(Class<?> objectclass, 
+			Class<?> spriteclass)
+	{
+		try
+		{
+			return objectclass.getMethod("drawSelf", 
+					Graphics2D.class).getDeclaringClass().isAssignableFrom(
+					spriteclass) && objectclass.getMethod("drawSelfBasic", 
+					Graphics2D.class).getDeclaringClass().isAssignableFrom(
+					spriteclass);
+		}
+		catch (NoSuchMethodException e)
+		{
+			return false;
+		}
+	}
+}
@@ -0,0 +1,232 @@
+package utopia_graphic;
+
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * TextureAtlas packs the images of multiple sprites into a few large pages. 
+ * The sprites then draw their images from the pages, which keeps the 
+ * memory in one piece and lets Java2D cache a few large images instead of 
+ * hundreds of small ones.<p>
+ * 
+ * The images are packed on shelves: they are sorted by their height and 
+ * placed side by side on rows that are as high as the highest image on 
+ * the row. Opaque, bitmask and translucent images are packed on separate 
+ * pages so that each page has the transparency its images need. Images 
+ * larger than a page are left as they are.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ * @see utopia_resourcebanks.SpriteBank#setUsesTextureAtlas(boolean)
+ */
+public class TextureAtlas
+{
+	// ATTRIBUTES	-----------------------------------------------------
+	
+	/**
+	 * The default width and height of an atlas page (pixels)
+	 */
+	public static final int DEFAULTPAGESIZE = 1024;
+	
+	// How much empty space is left between the images so that scaled 
+	// images don't take colours from their neighbours
+	private static final int PADDING = 1;
+	
+	private ArrayList<BufferedImage> pages;
+	
+	
+	// CONSTRUCTOR	-----------------------------------------------------
+	
+	private TextureAtlas()
+	{
+		// Initializes attributes
+		this.pages = new ArrayList<BufferedImage>();
+	}
+	
+	
+	// GETTERS & SETTERS	---------------------------------------------
+	
+	/**
+	 * @return How many pages the atlas has
+	 */
+	public int getPageNumber()
+	{
+		return this.pages.size();
+	}
+	
+	
+	// OTHER METHODS	-------------------------------------------------
+	
+	/**
+	 * Packs the images of the given sprites into a new atlas. The sprites 
+	 * will draw their images from the atlas afterwards.
+	 *
+	 * @param sprites The sprites whose images are packed
+	 * @param pagesize The width and height of a single page (pixels)
+	 * @return The atlas the images were packed into
+	 */
+	public static TextureAtlas pack(Collection<Sprite> sprites, int pagesize)
+	{
+		TextureAtlas atlas = new TextureAtlas();
+		
+		// Collects the images that fit to a page. Opaque images are kept 
+		// apart from the transparent ones so that they can be drawn from 
+		// opaque pages.
+		ArrayList<Entry> opaqueentries = new ArrayList<Entry>();
+		ArrayList<Entry> bitmaskentries = new ArrayList<Entry>();
+		ArrayList<Entry> translucententries = new ArrayList<Entry>();
+		
+		for (Sprite sprite : sprites)
+		{
+			for (int i = 0; i < sprite.getImageNumber(); i++)
+			{
+				BufferedImage image = sprite.getSubImage(i);
+				if (image.getWidth() + PADDING > pagesize || 
+						image.getHeight() + PADDING > pagesize)
+					continue;
+				
+				Entry entry = new Entry(sprite, i, image);
+				switch (image.getColorModel().getTransparency())
+				{
+					case Transparency.OPAQUE:
+						opaqueentries.add(entry); break;
+					case Transparency.BITMASK:
+						bitmaskentries.add(entry); break;
+					default:
+						translucententries.add(entry);
+				}
+			}
+		}
+		
+		atlas.packPages(opaqueentries, pagesize, Transparency.OPAQUE);
+		atlas.packPages(bitmaskentries, pagesize, Transparency.BITMASK);
+		atlas.packPages(translucententries, pagesize, 
+				Transparency.TRANSLUCENT);
+		
+		return atlas;
+	}
+	
+	// Packs the images to new pages that have the given transparency
+	private void packPages(ArrayList<Entry> entries, int pagesize, 
+			int transparency)
+	{
+		// The highest images are placed first
+		Collections.sort(entries, new Comparator<Entry>()
+		{
+			@Override
+			public int compare(Entry e1, Entry e2)
+			{
+				return e2.image.getHeight() - e1.image.getHeight();
+			}
+		});
+		
+		BufferedImage page = null;
+		Graphics2D g2d = null;
+		int x = 0, y = 0, shelfheight = 0;
+		
+		for (Entry entry : entries)
+		{
+			int width = entry.image.getWidth();
+			int height = entry.image.getHeight();
+			
+			// Moves to the next shelf if the image doesn't fit to this one
+			if (page != null && x + width > pagesize)
+			{
+				x = 0;
+				y += shelfheight + PADDING;
+				shelfheight = 0;
+			}
+			// Starts a new page if the shelf doesn't fit either
+			if (page == null || y + height > pagesize)
+			{
+				if (g2d != null)
+					g2d.dispose();
+				
+				page = Sprite.createCompatibleImage(pagesize, pagesize, 
+						transparency);
+				g2d = page.createGraphics();
+				this.pages.add(page);
+				x = 0;
+				y = 0;
+				shelfheight = 0;
+			}
+			
+			g2d.drawImage(entry.image, x, y, null);
+			entry.sprite.setAtlasRegion(entry.imageindex, 
+					new Region(page, x, y, width, height));
+			
+			x += width + PADDING;
+			shelfheight = Math.max(shelfheight, height);
+		}
+		
+		if (g2d != null)
+			g2d.dispose();
+	}
+	
+	
+	// SUBCLASSES	-----------------------------------------------------
+	
+	/**
+	 * Region is the area of an atlas page that contains a single image
+	 *
+	 * @author Mikko Hilpinen.
+	 *         Created 18.10.2026.
+	 */
+	static class Region
+	{
+		// ATTRIBUTES	------------------------------------------------
+		
+		private BufferedImage page;
+		private int x, y, width, height;
+		
+		
+		// CONSTRUCTOR	------------------------------------------------
+		
+		private Region(BufferedImage page, int x, int y, int width, int height)
+		{
+			// Initializes attributes
+			this.page = page;
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+		}
+		
+		
+		// OTHER METHODS	--------------------------------------------
+		
+		/**
+		 * Draws the region
+		 *
+		 * @param g2d The graphics object that does the drawing
+		 * @param xtranslation Where the region is drawn horizontally
+		 * @param ytranslation Where the region is drawn vertically
+		 */
+		public void draw(Graphics2D g2d, int xtranslation, int ytranslation)
+		{
+			g2d.drawImage(this.page, xtranslation, ytranslation, 
+					xtranslation + this.width, ytranslation + this.height, 
+					this.x, this.y, this.x + this.width, this.y + this.height, 
+					null);
+		}
+	}
+	
+	private static class Entry
+	{
+		private Sprite sprite;
+		private int imageindex;
+		private BufferedImage image;
+		
+		public Entry(Sprite sprite, int imageindex, BufferedImage image)
+		{
+			this.sprite = sprite;
+			this.imageindex = imageindex;
+			this.image = image;
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package utopia_handleds;
+
+/**
+ * HandledOwners hold handleds and want to know when the handleds die so that 
+ * they don't need to check the handleds' state all the time.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ * @see OwnedHandled
+ */
+public interface HandledOwner
+{
+	/**
+	 * This method is called when an owned handled dies
+	 *
+	 * @param h The handled that died
+	 */
+	public void onHandledDeath(Handled h);
+}
@@ -0,0 +1,31 @@
+package utopia_handleds;
+
+/**
+ * OwnedHandleds remember the owners (usually handlers) that hold them and 
+ * inform them when they die. The owners don't need to check whether an 
+ * ownedHandled is dead since they will be informed about it.<p>
+ * 
+ * An OwnedHandled must inform all of its owners whenever isDead() would start 
+ * returning true.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ * @see HandledOwner
+ */
+public interface OwnedHandled extends Handled
+{
+	/**
+	 * Adds a new owner that will be informed when the handled dies
+	 *
+	 * @param owner The owner that holds the handled
+	 */
+	public void addOwner(HandledOwner owner);
+	
+	/**
+	 * Removes an owner so that it won't be informed about the handled's death 
+	 * anymore
+	 *
+	 * @param owner The owner that no longer holds the handled
+	 */
+	public void removeOwner(HandledOwner owner);
+}
@@ -0,0 +1,19 @@
+package utopia_handleds;
+
+/**
+ * ParallelActors are actors that can act at the same time with other 
+ * parallelActors. A parallelActor's act method must not modify anything that 
+ * other actors read or modify during the same step, since the actors may be 
+ * handled in multiple threads.<p>
+ * 
+ * The interface doesn't add any new methods, it only marks the actor safe for 
+ * parallel handling.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ * @see utopia_handlers.ParallelActorHandler
+ */
+public interface ParallelActor extends Actor
+{
+	// ParallelActor is a marker interface
+}
@@ -0,0 +1,23 @@
+package utopia_handleds;
+
+import utopia_graphic.RenderState;
+
+/**
+ * SnapshotDrawables are drawables whose current state can be recorded so 
+ * that they can be drawn in another thread while they keep changing.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ * @see utopia_handlers.DrawableHandler#captureRenderState()
+ */
+public interface SnapshotDrawable extends Drawable
+{
+	/**
+	 * Records the current state of the object. The returned state must not 
+	 * change afterwards.
+	 *
+	 * @return The current state of the object or null if the object can't 
+	 * be recorded and should be drawn with drawSelf instead
+	 */
+	public RenderState getRenderState();
+}
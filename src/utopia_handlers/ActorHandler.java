@@ -1,5 +1,9 @@
 package utopia_handlers;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+
 import utopia_handleds.Actor;
 import utopia_handleds.Handled;
 
@@ -16,6 +20,13 @@ public class ActorHandler extends LogicalHandler implements Actor
 	// ATTRIBUTES	------------------------------------------------------
 	
 	private double laststeplength;
+	// The groups of actors that are informed less often (created when needed)
+	private ArrayList<TickGroup> tickgroups;
+	// The phase each actor in the tick groups is in (created with the 
+	// groups)
+	private IdentityHashMap<Handled, Phase> groupedactors;
+	// The stephandler above this handler (null if there isn't one)
+	private StepHandler stephandler;
 	
 	
 	// CONSTRUCTOR	------------------------------------------------------
@@ -32,6 +43,12 @@ public class ActorHandler extends LogicalHandler implements Actor
 		
 		// Initializes attributes
 		this.laststeplength = 0;
+		this.tickgroups = null;
+		this.groupedactors = null;
+		if (superhandler != null)
+			this.stephandler = superhandler.getStepHandler();
+		else
+			this.stephandler = null;
 	}
 	
 	
@@ -63,6 +80,65 @@ public class ActorHandler extends LogicalHandler implements Actor
 		return true;
 	}
 	
+	@Override
+	public void removeHandled(Handled h)
+	{
+		super.removeHandled(h);
+		
+		// The actor may also be in one of the tick groups
+		if (!(h instanceof TickGroup))
+			removeFromPhase(h);
+	}
+	
+	@Override
+	public void removeHandleds(Collection<? extends Handled> handleds)
+	{
+		super.removeHandleds(handleds);
+		
+		for (Handled h : handleds)
+		{
+			if (!(h instanceof TickGroup))
+				removeFromPhase(h);
+		}
+	}
+	
+	@Override
+	public void removeAllHandleds()
+	{
+		// The tick groups are removed as well so new ones are created 
+		// when needed. The old groups are killed but their actors are not.
+		ArrayList<TickGroup> groups;
+		synchronized (this)
+		{
+			groups = this.tickgroups;
+			this.tickgroups = null;
+			this.groupedactors = null;
+		}
+		
+		super.removeAllHandleds();
+		
+		if (groups != null)
+		{
+			for (TickGroup group : groups)
+			{
+				group.release();
+			}
+		}
+	}
+	
+	
+	// GETTERS & SETTERS	-----------------------------------------------
+	
+	/**
+	 * @return The stephandler that informs this handler through its 
+	 * superhandlers or null if the handler wasn't created under a 
+	 * stephandler. Objects can read the state of the fixed steps from it.
+	 */
+	public StepHandler getStepHandler()
+	{
+		return this.stephandler;
+	}
+	
 	
 	// OTHER METHODS	---------------------------------------------------
 	
@@ -75,4 +151,229 @@ public class ActorHandler extends LogicalHandler implements Actor
 	{
 		addHandled(a);
 	}
+	
+	/**
+	 * Adds multiple actors to the handled actors at once
+	 *
+	 * @param actors The actors to be added
+	 */
+	public void addActors(Collection<? extends Actor> actors)
+	{
+		addHandleds(actors);
+	}
+	
+	/**
+	 * Adds a new actor that is informed only every nth step. The actors 
+	 * with the same divisor are spread evenly between the steps so that the 
+	 * load stays the same from step to step. Each actor is added to the 
+	 * step that has the least actors at the time. The actor receives all the 
+	 * steps that have passed since it was last informed. This can be used 
+	 * for actors that don't need to react every step, like AI or timers.
+	 *
+	 * @param a The actor to be added
+	 * @param tickdivisor How often the actor is informed (1 = every step, 
+	 * 2 = every 2nd step, 4 = every 4th step and so on)
+	 */
+	public void addActor(Actor a, int tickdivisor)
+	{
+		if (tickdivisor <= 1)
+		{
+			addActor(a);
+			return;
+		}
+		
+		if (a == null)
+			return;
+		
+		// The phase is reserved first and the actor is added outside the 
+		// lock
+		Phase phase;
+		synchronized (this)
+		{
+			if (this.groupedactors == null)
+				this.groupedactors = new IdentityHashMap<Handled, Phase>();
+			// Actors that are already in a tick group aren't added twice
+			else if (this.groupedactors.containsKey(a))
+				return;
+			
+			phase = getTickGroup(tickdivisor).getLeastLoadedPhase();
+			phase.load ++;
+			this.groupedactors.put(a, phase);
+		}
+		
+		phase.addActor(a);
+	}
+	
+	// Finds the tick group with the given divisor or creates one. Must be 
+	// called while the handler is locked.
+	private TickGroup getTickGroup(int tickdivisor)
+	{
+		if (this.tickgroups == null)
+			this.tickgroups = new ArrayList<TickGroup>();
+		
+		for (TickGroup group : this.tickgroups)
+		{
+			if (group.getTickDivisor() == tickdivisor)
+				return group;
+		}
+		
+		TickGroup group = new TickGroup(tickdivisor, this);
+		this.tickgroups.add(group);
+		return group;
+	}
+	
+	// Removes the actor from its tick group phase, if it is in one. Only 
+	// that single phase is touched.
+	private void removeFromPhase(Handled h)
+	{
+		Phase phase = null;
+		synchronized (this)
+		{
+			if (this.groupedactors != null)
+				phase = this.groupedactors.get(h);
+		}
+		
+		if (phase != null)
+			phase.removeHandled(h);
+	}
+	
+	// Forgets the phase of an actor that was removed from a tick group
+	private void forgetGroupedActor(Handled h, Phase phase)
+	{
+		synchronized (this)
+		{
+			if (this.groupedactors != null && 
+					this.groupedactors.get(h) == phase)
+			{
+				this.groupedactors.remove(h);
+				phase.load --;
+			}
+		}
+	}
+	
+	
+	// SUBCLASSES	------------------------------------------------------
+	
+	// Tickgroups divide their actors into phases and inform a single phase 
+	// each step. The phases collect the steps until it is their turn.
+	private static class TickGroup extends ActorHandler
+	{
+		// ATTRIBUTES	------------------------------------------------
+		
+		private Phase[] phases;
+		private double[] collectedsteps;
+		private int currentphase;
+		
+		
+		// CONSTRUCTOR	------------------------------------------------
+		
+		public TickGroup(int tickdivisor, ActorHandler superhandler)
+		{
+			super(false, superhandler);
+			
+			// Initializes attributes
+			this.phases = new Phase[tickdivisor];
+			this.collectedsteps = new double[tickdivisor];
+			this.currentphase = 0;
+			
+			for (int i = 0; i < this.phases.length; i++)
+			{
+				this.phases[i] = new Phase(this, superhandler);
+			}
+		}
+		
+		
+		// IMPLEMENTED METHODS	----------------------------------------
+		
+		@Override
+		public void act(double steps)
+		{
+			for (int i = 0; i < this.collectedsteps.length; i++)
+			{
+				this.collectedsteps[i] += steps;
+			}
+			
+			// Only the current phase is informed
+			ActorHandler phase = this.phases[this.currentphase];
+			double phasesteps = this.collectedsteps[this.currentphase];
+			this.collectedsteps[this.currentphase] = 0;
+			this.currentphase = (this.currentphase + 1) % this.phases.length;
+			
+			if (phase.isActive())
+				phase.act(phasesteps);
+		}
+		
+		
+		// OTHER METHODS	--------------------------------------------
+		
+		public int getTickDivisor()
+		{
+			return this.phases.length;
+		}
+		
+		// The owner must be locked while this is called
+		public Phase getLeastLoadedPhase()
+		{
+			Phase leastloaded = this.phases[0];
+			for (int i = 1; i < this.phases.length; i++)
+			{
+				if (this.phases[i].load < leastloaded.load)
+					leastloaded = this.phases[i];
+			}
+			
+			return leastloaded;
+		}
+		
+		// Kills the group and its phases but not the actors in them
+		public void release()
+		{
+			for (int i = 0; i < this.phases.length; i++)
+			{
+				this.phases[i].killWithoutKillingHandleds();
+			}
+			
+			killWithoutKillingHandleds();
+		}
+	}
+	
+	// Phases inform the owner when their actors are removed or die so that 
+	// the owner knows how many actors each phase has
+	private static class Phase extends ActorHandler
+	{
+		// ATTRIBUTES	------------------------------------------------
+		
+		private ActorHandler owner;
+		// How many actors there are in the phase. Only used while the 
+		// owner is locked.
+		private int load;
+		
+		
+		// CONSTRUCTOR	------------------------------------------------
+		
+		public Phase(TickGroup group, ActorHandler owner)
+		{
+			super(false, group);
+			
+			// Initializes attributes
+			this.owner = owner;
+			this.load = 0;
+		}
+		
+		
+		// IMPLEMENTED METHODS	----------------------------------------
+		
+		@Override
+		public void removeHandled(Handled h)
+		{
+			super.removeHandled(h);
+			this.owner.forgetGroupedActor(h, this);
+		}
+		
+		@Override
+		public void onHandledDeath(Handled h)
+		{
+			super.onHandledDeath(h);
+			this.owner.forgetGroupedActor(h, this);
+		}
+	}
 }
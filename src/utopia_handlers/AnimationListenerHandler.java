@@ -32,7 +32,23 @@ public class AnimationListenerHandler extends LogicalHandler implements
 	public AnimationListenerHandler(boolean autodeath,
 			AnimationListenerHandler superhandler)
 	{
-		super(autodeath, superhandler);
+		this(autodeath, true, superhandler);
+	}
+	
+	/**
+	 * Creates a new empty animationlistenerhandler with the given information. 
+	 * Handlers used by a single spritedrawer don't usually need to be 
+	 * thread-safe.
+	 *
+	 * @param autodeath Will the handler die when it runs out of listeners
+	 * @param threadsafe Can the events be informed from multiple threads
+	 * @param superhandler The animationlistenerhandler that will inform 
+	 * the handler about animation events (optional)
+	 */
+	public AnimationListenerHandler(boolean autodeath, boolean threadsafe, 
+			AnimationListenerHandler superhandler)
+	{
+		super(autodeath, threadsafe, superhandler);
 		
 		// Initializes attributes
 		this.lastdrawer = null;
@@ -0,0 +1,232 @@
+package utopia_handlers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import utopia_handleds.Drawable;
+import utopia_handleds.Handled;
+
+/**
+ * DepthBucketDrawableHandler keeps its drawables in buckets that each 
+ * contain the drawables of a single depth. The buckets are drawn from the 
+ * deepest to the highest so the drawables never need to be sorted. When a 
+ * drawable's depth changes, it is simply moved to another bucket before 
+ * the next drawing. The handler works best when many objects change their 
+ * depth often, like when objects are sorted by their y-coordinate.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ */
+public class DepthBucketDrawableHandler extends DrawableHandler
+{
+	// ATTRIBUTES	-----------------------------------------------------
+	
+	private TreeMap<Integer, DepthBucket> buckets;
+	// The bucket each drawable is currently in. Only used while the 
+	// buckets are locked.
+	private IdentityHashMap<Drawable, DepthBucket> drawablebuckets;
+	
+	
+	// CONSTRUCTOR	-----------------------------------------------------
+	
+	/**
+	 * Creates a new empty handler. Drawables must be added later manually.
+	 *
+	 * @param autodeath Will the handler die if it has no living drawables to handle
+	 * @param depth How 'deep' the objects in this handler are drawn
+	 * @param superhandler The drawableHandler that will draw this handler (optional)
+	 */
+	public DepthBucketDrawableHandler(boolean autodeath, int depth, 
+			DrawableHandler superhandler)
+	{
+		super(autodeath, true, depth, 1, superhandler);
+		
+		// Initializes attributes
+		this.buckets = new TreeMap<Integer, DepthBucket>();
+		this.drawablebuckets = new IdentityHashMap<Drawable, DepthBucket>();
+	}
+	
+	
+	// IMPLEMENTED METHODS	---------------------------------------------
+	
+	@Override
+	protected void addHandled(Handled h)
+	{
+		// The buckets are sorted normally, but that only happens when a new 
+		// bucket is created
+		if (h instanceof DepthBucket)
+			super.addHandled(h);
+		else if (h instanceof Drawable)
+		{
+			synchronized (this.buckets)
+			{
+				addToBucket((Drawable) h);
+			}
+		}
+	}
+	
+	@Override
+	protected void addHandleds(Collection<? extends Handled> handleds)
+	{
+		for (Handled h : handleds)
+		{
+			addHandled(h);
+		}
+	}
+	
+	@Override
+	public void removeHandled(Handled h)
+	{
+		if (h instanceof DepthBucket)
+		{
+			super.removeHandled(h);
+			return;
+		}
+		
+		// The drawable is only removed from the bucket it is in
+		synchronized (this.buckets)
+		{
+			DepthBucket bucket = this.drawablebuckets.remove(h);
+			if (bucket != null)
+				bucket.removeHandled(h);
+		}
+	}
+	
+	@Override
+	public void removeHandleds(Collection<? extends Handled> handleds)
+	{
+		for (Handled h : handleds)
+		{
+			removeHandled(h);
+		}
+	}
+	
+	@Override
+	public void removeAllHandleds()
+	{
+		synchronized (this.buckets)
+		{
+			this.buckets.clear();
+			this.drawablebuckets.clear();
+		}
+		
+		super.removeAllHandleds();
+	}
+	
+	@Override
+	protected void updateStatus()
+	{
+		// The drawables that changed their depth are moved to the right 
+		// buckets before the drawing starts
+		synchronized (this.buckets)
+		{
+			moveChangedDrawables();
+			removeEmptyBuckets();
+		}
+		
+		super.updateStatus();
+	}
+	
+	
+	// OTHER METHODS	-------------------------------------------------
+	
+	// Adds the drawable to the bucket of its depth, creating one if necessary. 
+	// If the drawable was in another bucket, it is removed from there. Must 
+	// be called while the buckets are locked.
+	private void addToBucket(Drawable d)
+	{
+		int depth = d.getDepth();
+		DepthBucket previous = this.drawablebuckets.get(d);
+		if (previous != null)
+		{
+			if (previous.getDepth() == depth)
+				return;
+			previous.removeHandled(d);
+		}
+		
+		DepthBucket bucket = this.buckets.get(depth);
+		if (bucket == null)
+		{
+			bucket = new DepthBucket(depth, this);
+			this.buckets.put(depth, bucket);
+		}
+		
+		bucket.addDrawable(d);
+		this.drawablebuckets.put(d, bucket);
+	}
+	
+	// Moves the drawables whose depth doesn't match their bucket anymore and 
+	// forgets the dead ones. Must be called while the buckets are locked.
+	private void moveChangedDrawables()
+	{
+		ArrayList<Drawable> moved = null;
+		Iterator<Map.Entry<Drawable, DepthBucket>> iter = 
+				this.drawablebuckets.entrySet().iterator();
+		
+		while (iter.hasNext())
+		{
+			Map.Entry<Drawable, DepthBucket> entry = iter.next();
+			Drawable d = entry.getKey();
+			DepthBucket bucket = entry.getValue();
+			
+			if (d.isDead())
+			{
+				iter.remove();
+				bucket.removeHandled(d);
+			}
+			else if (d.getDepth() != bucket.getDepth())
+			{
+				if (moved == null)
+					moved = new ArrayList<Drawable>();
+				moved.add(d);
+			}
+		}
+		
+		if (moved == null)
+			return;
+		
+		for (Drawable d : moved)
+		{
+			addToBucket(d);
+		}
+	}
+	
+	// Removes the buckets that don't have any drawables left so that the 
+	// unused depths aren't kept. Must be called while the buckets are 
+	// locked, which means that the queued drawables are in the bucket after 
+	// its status update.
+	private void removeEmptyBuckets()
+	{
+		Iterator<DepthBucket> iter = this.buckets.values().iterator();
+		while (iter.hasNext())
+		{
+			DepthBucket bucket = iter.next();
+			bucket.updateStatus();
+			
+			if (bucket.getHandledNumber() == 0)
+			{
+				iter.remove();
+				super.removeHandled(bucket);
+			}
+		}
+	}
+	
+	
+	// SUBCLASSES	-----------------------------------------------------
+	
+	// Depthbuckets contain the drawables of a single depth. The owner moves 
+	// the drawables to another bucket if their depth changes.
+	private class DepthBucket extends DrawableHandler
+	{
+		// CONSTRUCTOR	------------------------------------------------
+		
+		public DepthBucket(int depth, DepthBucketDrawableHandler owner)
+		{
+			super(false, false, depth, 1, owner);
+		}
+	}
+}
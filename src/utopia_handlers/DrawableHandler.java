@@ -1,11 +1,19 @@
 package utopia_handlers;
 
 import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Stack;
 
+import utopia_graphic.RenderGroup;
+import utopia_graphic.RenderState;
 import utopia_handleds.Drawable;
 import utopia_handleds.Handled;
+import utopia_handleds.SnapshotDrawable;
 import utopia_utility.DepthConstants;
 
 /**
@@ -108,11 +116,8 @@ public class DrawableHandler extends Handler implements Drawable
 	@Override
 	public boolean isVisible()
 	{
-		// Checks the visibility of all handleds (until finds an visible one)
-		VisibilityCheckOperator checkoperator = new VisibilityCheckOperator();
-		handleObjects(checkoperator);
-		
-		return checkoperator.isVisible();
+		// The handler keeps count of the handleds that may be visible
+		return containsActiveHandleds();
 	}
 
 	@Override
@@ -172,27 +177,14 @@ public class DrawableHandler extends Handler implements Drawable
 					return;
 				}
 				
-				int drawableDepth = d.getDepth();
-				boolean spotFound = false;
-					
-				for (int i = 0; i < this.subDrawers.length; i++)
-				{
-					//System.out.println(this.subDrawers[i]);
-					
-					if (this.subDrawers[i].depthIsWithinRange(drawableDepth))
-					{
-						spotFound = true;
-						this.subDrawers[i].addDrawable(d);
-						break;
-					}
-				}
+				int subDrawerIndex = findSubDrawerIndex(d);
 				
-				// For error checking, checks that a spot was actually found
-				if (!spotFound)
+				if (subDrawerIndex >= 0)
+					this.subDrawers[subDrawerIndex].addDrawable(d);
+				// If a spot wasn't found, the drawable is added to this 
+				// handler instead
+				else
 				{
-					System.err.println("DrawableHandler couldn't find a spot "
-							+ "for an object with depth " + drawableDepth + 
-							", please use depth within depthConstants' range");
 					this.needsSorting = true;
 					super.addHandled(d);
 				}
@@ -210,6 +202,80 @@ public class DrawableHandler extends Handler implements Drawable
 			super.addHandled(d);
 	}
 	
+	@Override
+	protected void addHandleds(Collection<? extends Handled> handleds)
+	{
+		// Without depth sorting, the handleds can be added as they are
+		if (!this.usesDepth)
+		{
+			super.addHandleds(handleds);
+			return;
+		}
+		
+		// Divides the drawables between the subdrawers (if there are any)
+		ArrayList<ArrayList<Handled>> subDrawerRuns = 
+				new ArrayList<ArrayList<Handled>>();
+		if (this.usesSubDrawers)
+		{
+			for (int i = 0; i < this.subDrawers.length; i++)
+			{
+				subDrawerRuns.add(new ArrayList<Handled>());
+			}
+		}
+		ArrayList<Handled> run = new ArrayList<Handled>();
+		ArrayList<Handled> unsorted = new ArrayList<Handled>();
+		
+		for (Handled h : handleds)
+		{
+			// Can only add drawables
+			if (!(h instanceof Drawable))
+				continue;
+			
+			Drawable d = (Drawable) h;
+			
+			if (d instanceof SubDrawer)
+				unsorted.add(d);
+			else if (this.usesSubDrawers)
+			{
+				// If the subDrawers aren't ready yet, simply adds the 
+				// drawable to a stack of waiting objects
+				if (!this.subDrawersAreReady)
+				{
+					this.drawablesWaitingDepthSorting.push(d);
+					continue;
+				}
+				
+				int subDrawerIndex = findSubDrawerIndex(d);
+				
+				if (subDrawerIndex >= 0)
+					subDrawerRuns.get(subDrawerIndex).add(d);
+				else
+					run.add(d);
+			}
+			else
+				run.add(d);
+		}
+		
+		for (int i = 0; i < subDrawerRuns.size(); i++)
+		{
+			if (!subDrawerRuns.get(i).isEmpty())
+				this.subDrawers[i].addHandleds(subDrawerRuns.get(i));
+		}
+		
+		super.addHandleds(unsorted);
+		
+		// The drawables are sorted before they are added so that they form a 
+		// single sorted run at the end of the handling list. Sorting the 
+		// list then only needs to merge the runs instead of sorting 
+		// everything again.
+		if (!run.isEmpty())
+		{
+			Collections.sort(run, new DepthSorter());
+			this.needsSorting = true;
+			super.addHandleds(run);
+		}
+	}
+	
 	@Override
 	protected Class<?> getSupportedClass()
 	{
@@ -219,17 +285,20 @@ public class DrawableHandler extends Handler implements Drawable
 	@Override
 	protected boolean handleObject(Handled h)
 	{
-		Drawable d = (Drawable) h;
-		
-		// Draws the visible object
-		if (d.isVisible())
-			d.drawSelf(this.lastg2d);
-		
-		// Also checks if the depths are still ok
-		if (d.getDepth() > this.lastDrawableDepth)
-			this.needsSorting = true;
-		
-		return true;
+		// Handleobjects draws the drawables, they are recorded by a 
+		// separate operator
+		return handleDrawable((Drawable) h, null);
+	}
+	
+	@Override
+	protected Handled[] selectHandleds(Handled[] snapshot, 
+			HandlingOperator operator)
+	{
+		// Only drawing and recording may skip drawables, the other 
+		// operations go through all of them
+		if (operator == null || operator instanceof CaptureOperator)
+			return selectDrawables(snapshot);
+		return snapshot;
 	}
 	
 	@Override
@@ -258,6 +327,124 @@ public class DrawableHandler extends Handler implements Drawable
 		addHandled(d);
 	}
 	
+	/**
+	 * Adds multiple drawables to the handled drawables at once. This is faster 
+	 * than adding the drawables one by one.
+	 *
+	 * @param drawables The drawables to be added
+	 */
+	public void addDrawables(Collection<? extends Drawable> drawables)
+	{
+		addHandleds(drawables);
+	}
+	
+	/**
+	 * Records the current state of the visible drawables in the handler 
+	 * instead of drawing them. The returned state can be drawn in another 
+	 * thread while the drawables keep changing. This should be called in the 
+	 * same thread that updates the drawables. Drawables that can't be 
+	 * recorded are drawn normally when the state is drawn.
+	 *
+	 * @return The current state of the handler's content
+	 * @see SnapshotDrawable
+	 */
+	public RenderGroup captureRenderState()
+	{
+		ArrayList<RenderState> states = new ArrayList<RenderState>();
+		captureRenderStates(states);
+		
+		return new RenderGroup(null, states);
+	}
+	
+	/**
+	 * Draws a single drawable or records its state. Subclasses that need 
+	 * to check the drawables before they are drawn should override this 
+	 * method instead of handleObject so that the checks are done in both 
+	 * cases.
+	 *
+	 * @param d The drawable that is drawn
+	 * @param states The list where the drawable's state is recorded. Null if 
+	 * the drawable should be drawn instead.
+	 * @return Should the remaining drawables be handled as well
+	 */
+	protected boolean handleDrawable(Drawable d, List<RenderState> states)
+	{
+		// Draws the visible object (or records it)
+		if (d.isVisible())
+		{
+			if (states == null)
+				d.drawSelf(this.lastg2d);
+			else
+				captureDrawable(d, states);
+		}
+		
+		// Also checks if the depths are still ok
+		if (d.getDepth() > this.lastDrawableDepth)
+			this.needsSorting = true;
+		
+		return true;
+	}
+	
+	/**
+	 * Selects the drawables that are drawn or recorded. Subclasses that 
+	 * know which drawables may be visible can override this so that the 
+	 * other drawables aren't visited at all. By default all drawables are 
+	 * selected.
+	 *
+	 * @param snapshot The latest snapshot of the drawables in drawing 
+	 * order. May contain null values.
+	 * @return The drawables that are drawn or recorded, in drawing order
+	 */
+	protected Handled[] selectDrawables(Handled[] snapshot)
+	{
+		return snapshot;
+	}
+	
+	// Records the visible drawables to the given list in drawing order
+	private void captureRenderStates(List<RenderState> states)
+	{
+		this.lastDrawableDepth = DepthConstants.BOTTOM + 1000;
+		
+		handleObjects(new CaptureOperator(states));
+	}
+	
+	private static void captureDrawable(Drawable d, List<RenderState> states)
+	{
+		// Handlers (subdrawers, for example) are recorded into the same list
+		if (d instanceof DrawableHandler)
+		{
+			((DrawableHandler) d).captureRenderStates(states);
+			return;
+		}
+		
+		RenderState state = null;
+		if (d instanceof SnapshotDrawable)
+			state = ((SnapshotDrawable) d).getRenderState();
+		if (state == null)
+			state = new LiveRenderState(d);
+		
+		states.add(state);
+	}
+	
+	// Finds the subdrawer the drawable should be added to. Returns -1 if 
+	// there is no suitable subdrawer
+	private int findSubDrawerIndex(Drawable d)
+	{
+		int drawableDepth = d.getDepth();
+		
+		for (int i = 0; i < this.subDrawers.length; i++)
+		{
+			if (this.subDrawers[i].depthIsWithinRange(drawableDepth))
+				return i;
+		}
+		
+		// For error checking, informs that a spot wasn't found
+		System.err.println("DrawableHandler couldn't find a spot "
+				+ "for an object with depth " + drawableDepth + 
+				", please use depth within depthConstants' range");
+		return -1;
+	}
+	
 	
 	// SUBCLASSES	------------------------------------------------------
 	
@@ -297,41 +484,51 @@ public class DrawableHandler extends Handler implements Drawable
 		}	
 	}
 	
-	private class VisibilityCheckOperator extends HandlingOperator
+	// CaptureOperator records the drawables' states instead of drawing them. 
+	// The list is passed with the operator so that drawing and recording 
+	// can happen at the same time in different threads.
+	private class CaptureOperator extends HandlingOperator
 	{
-		// ATTRIBUTES	------------------------------------------------
-		
-		private boolean foundvisible;
-		
+		private List<RenderState> states;
 		
-		// CONSTRUCTOR	------------------------------------------------
-		
-		public VisibilityCheckOperator()
+		public CaptureOperator(List<RenderState> states)
 		{
-			this.foundvisible = false;
+			this.states = states;
 		}
 		
-		
-		// IMPLEMENTED METHODS	----------------------------------------
-		
 		@Override
 		protected boolean handleObject(Handled h)
 		{
-			if (((Drawable) h).isVisible())
-			{
-				this.foundvisible = true;
-				return false;
-			}
-			else
-				return true;
+			return handleDrawable((Drawable) h, this.states);
 		}
+	}
+	
+	// Drawables that can't be recorded are drawn as they are at the time 
+	// the state is drawn
+	private static class LiveRenderState implements RenderState
+	{
+		private Drawable drawable;
 		
+		public LiveRenderState(Drawable drawable)
+		{
+			this.drawable = drawable;
+		}
 		
-		// GETTERS & SETTERS	----------------------------------------
+		@Override
+		public void draw(Graphics2D g2d)
+		{
+			if (this.drawable.isVisible())
+				this.drawable.drawSelf(g2d);
+		}
 		
-		public boolean isVisible()
+		@Override
+		public Rectangle2D getBounds()
 		{
-			return this.foundvisible;
+			// The drawable may draw anything anywhere and it may change 
+			// without the state changing. Because of this, a visible 
+			// drawable that can't be recorded makes the whole scene drawn 
+			// again when dirty regions are used.
+			return null;
 		}
 	}
 	
@@ -361,21 +558,19 @@ public class DrawableHandler extends Handler implements Drawable
 		// IMPLEMENTED METHODS	----------------------------------------
 		
 		@Override
-		protected boolean handleObject(Handled h)
+		protected boolean handleDrawable(Drawable d, List<RenderState> states)
 		{
 			// Also checks if the object is out of the depth range
 			
-			Drawable d = (Drawable) h;
-			
 			if (d.getDepth() < this.minDepth || d.getDepth() > this.maxDepth)
 			{
 				// Removes the drawable from this depth range and requests a 
 				// repositioning
-				removeHandled(h);
+				removeHandled(d);
 				this.superHandler.addDrawable(d);
 			}	
 			
-			return super.handleObject(h);
+			return super.handleDrawable(d, states);
 		}
 		
 		// OTHER METHODS	------------------------------------------------
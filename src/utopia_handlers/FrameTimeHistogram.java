@@ -0,0 +1,178 @@
+package utopia_handlers;
+
+import java.util.Arrays;
+
+/**
+ * FrameTimeHistogram remembers the durations of the latest frames and
+ * tells how the durations are distributed. Only a limited number of the
+ * latest frames is remembered so the values follow the current load.<p>
+ *
+ * The histogram can be read by any thread while it is being recorded.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ * @see StepHandler#getFrameTimeHistogram()
+ */
+public class FrameTimeHistogram
+{
+	// ATTRIBUTES	-----------------------------------------------------
+	
+	private long[] frametimes;
+	private int nextindex, samplenumber;
+	private long totalframes, maxframetime;
+	
+	
+	// CONSTRUCTOR	-----------------------------------------------------
+	
+	/**
+	 * Creates a new empty histogram
+	 *
+	 * @param windowsize How many of the latest frames are remembered (> 0)
+	 */
+	public FrameTimeHistogram(int windowsize)
+	{
+		// Initializes attributes
+		this.frametimes = new long[Math.max(1, windowsize)];
+		this.nextindex = 0;
+		this.samplenumber = 0;
+		this.totalframes = 0;
+		this.maxframetime = 0;
+	}
+	
+	
+	// IMPLEMENTED METHODS	---------------------------------------------
+	
+	@Override
+	public String toString()
+	{
+		return "Frame times (" + getSampleNumber() + " frames): p50 " +
+				getP50Nanos() / 1000 + " us, p95 " + getP95Nanos() / 1000 +
+				" us, p99 " + getP99Nanos() / 1000 + " us, max " +
+				getMaxNanos() / 1000 + " us";
+	}
+	
+	
+	// GETTERS & SETTERS	---------------------------------------------
+	
+	/**
+	 * @return How many frames the histogram currently remembers
+	 */
+	public synchronized int getSampleNumber()
+	{
+		return this.samplenumber;
+	}
+	
+	/**
+	 * @return How many frames have been recorded in total
+	 */
+	public synchronized long getTotalFrameNumber()
+	{
+		return this.totalframes;
+	}
+	
+	/**
+	 * @return The longest remembered frame time (ns)
+	 */
+	public synchronized long getMaxNanos()
+	{
+		return this.maxframetime;
+	}
+	
+	/**
+	 * @return The median of the remembered frame times (ns)
+	 */
+	public long getP50Nanos()
+	{
+		return getPercentileNanos(50);
+	}
+	
+	/**
+	 * @return The frame time that 95% of the remembered frames don't
+	 * exceed (ns)
+	 */
+	public long getP95Nanos()
+	{
+		return getPercentileNanos(95);
+	}
+	
+	/**
+	 * @return The frame time that 99% of the remembered frames don't
+	 * exceed (ns)
+	 */
+	public long getP99Nanos()
+	{
+		return getPercentileNanos(99);
+	}
+	
+	
+	// OTHER METHODS	-------------------------------------------------
+	
+	/**
+	 * Records the duration of a new frame. The oldest frame is forgotten if
+	 * the histogram is full.
+	 *
+	 * @param nanos How long the frame took (ns)
+	 */
+	public synchronized void record(long nanos)
+	{
+		boolean replacesmax = this.samplenumber == this.frametimes.length &&
+				this.frametimes[this.nextindex] == this.maxframetime;
+		
+		this.frametimes[this.nextindex] = nanos;
+		this.nextindex = (this.nextindex + 1) % this.frametimes.length;
+		if (this.samplenumber < this.frametimes.length)
+			this.samplenumber ++;
+		this.totalframes ++;
+		
+		// Updates the maximum, which may have been forgotten
+		if (nanos >= this.maxframetime)
+			this.maxframetime = nanos;
+		else if (replacesmax)
+		{
+			this.maxframetime = 0;
+			for (int i = 0; i < this.samplenumber; i++)
+			{
+				this.maxframetime = Math.max(this.maxframetime,
+						this.frametimes[i]);
+			}
+		}
+	}
+	
+	/**
+	 * Finds the frame time that the given percentage of the remembered
+	 * frames don't exceed
+	 *
+	 * @param percentile The percentage of the frames [0, 100]
+	 * @return The frame time at the given percentile or 0 if no frames have
+	 * been recorded (ns)
+	 */
+	public long getPercentileNanos(double percentile)
+	{
+		long[] sorted;
+		synchronized (this)
+		{
+			if (this.samplenumber == 0)
+				return 0;
+			
+			sorted = Arrays.copyOf(this.frametimes, this.samplenumber);
+		}
+		
+		Arrays.sort(sorted);
+		
+		// Uses the nearest rank
+		int rank = (int) Math.ceil(Math.max(0, Math.min(100, percentile)) /
+				100.0 * sorted.length);
+		return sorted[Math.max(0, rank - 1)];
+	}
+	
+	/**
+	 * Forgets all the recorded frames
+	 */
+	public synchronized void clear()
+	{
+		this.nextindex = 0;
+		this.samplenumber = 0;
+		this.totalframes = 0;
+		this.maxframetime = 0;
+	}
+}
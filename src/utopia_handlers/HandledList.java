@@ -0,0 +1,397 @@
+package utopia_handlers;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import utopia_handleds.Handled;
+
+/**
+ * HandledList is the storage used by the handlers. The handleds are kept in a
+ * dense array and each of them is indexed by identity so that membership
+ * checks and removals can be done in constant time. Removed handleds leave a
+ * tombstone behind that is cleared when the list is compacted. Compacting
+ * keeps the order of the remaining handleds, which is important for the
+ * handlers that sort their content.<p>
+ * 
+ * Most handlers only hold a few handleds, so the list doesn't reserve any
+ * memory before the first handled is added and small lists are searched
+ * without an index.<p>
+ * 
+ * The list is modified by a single thread at a time but it can be iterated
+ * by any number of threads without locking. The iterators go through a
+ * snapshot of the list that is published with publish(). Removed handleds
+ * are cleared from the current snapshot as well so that the iterators
+ * skip them.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ */
+class HandledList implements Iterable<Handled>
+{
+	// ATTRIBUTES	-----------------------------------------------------
+	
+	private static final Handled[] EMPTY = new Handled[0];
+	// How many handleds (or tombstones) there can be before an index is used
+	private static final int INDEXLIMIT = 8;
+	
+	private Handled[] handleds;
+	private IdentityHashMap<Handled, Integer> indices;
+	private int end, tombstones;
+	
+	// The version of the list seen by the iterators. The indices of the 
+	// snapshot always match the indices of the list
+	private volatile Handled[] snapshot;
+	private boolean snapshotoutdated;
+	
+	
+	// CONSTRUCTOR	-----------------------------------------------------
+	
+	/**
+	 * Creates a new empty list
+	 */
+	public HandledList()
+	{
+		// Initializes attributes
+		this.handleds = EMPTY;
+		this.indices = null;
+		this.end = 0;
+		this.tombstones = 0;
+		this.snapshot = EMPTY;
+		this.snapshotoutdated = false;
+	}
+	
+	
+	// IMPLEMENTED METHODS	---------------------------------------------
+	
+	@Override
+	public Iterator<Handled> iterator()
+	{
+		return new HandledIterator(this.snapshot);
+	}
+	
+	
+	// OTHER METHODS	-------------------------------------------------
+	
+	/**
+	 * @return How many (living) handleds there are in the list
+	 */
+	public int size()
+	{
+		return this.end - this.tombstones;
+	}
+	
+	/**
+	 * @return Is the list empty
+	 */
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+	
+	/**
+	 * @param h The handled that may be in the list
+	 * @return Is the handled in the list
+	 */
+	public boolean contains(Handled h)
+	{
+		return indexOf(h) >= 0;
+	}
+	
+	/**
+	 * Adds a new handled to the end of the list
+	 *
+	 * @param h The handled to be added
+	 * @return Was the handled added (false if it already was in the list)
+	 */
+	public boolean add(Handled h)
+	{
+		if (h == null || contains(h))
+			return false;
+		
+		// Makes room for the new handled if needed. The list isn't compacted 
+		// here since the indices must match the published snapshot
+		if (this.end == this.handleds.length)
+			this.handleds = Arrays.copyOf(this.handleds, 
+					Math.max(2, this.handleds.length * 2));
+		
+		this.handleds[this.end] = h;
+		if (this.indices != null)
+			this.indices.put(h, this.end);
+		this.end ++;
+		this.snapshotoutdated = true;
+		
+		// Larger lists are indexed
+		if (this.indices == null && this.end > INDEXLIMIT)
+		{
+			this.indices = new IdentityHashMap<Handled, Integer>();
+			for (int i = 0; i < this.end; i++)
+			{
+				if (this.handleds[i] != null)
+					this.indices.put(this.handleds[i], i);
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Removes a handled from the list, leaving a tombstone in its place. The
+	 * list should be compacted once the removals have been done.
+	 *
+	 * @param h The handled to be removed
+	 * @return Was the handled in the list
+	 * @see #compact()
+	 */
+	public boolean markRemoved(Handled h)
+	{
+		int index = indexOf(h);
+		
+		if (index < 0)
+			return false;
+		
+		if (this.indices != null)
+			this.indices.remove(h);
+		
+		this.handleds[index] = null;
+		this.tombstones ++;
+		
+		// The iterators skip the handled from now on
+		Handled[] snapshot = this.snapshot;
+		if (index < snapshot.length)
+			snapshot[index] = null;
+		
+		return true;
+	}
+	
+	/**
+	 * @return Are there tombstones left by removed handleds in the list
+	 * @see #compact()
+	 */
+	public boolean hasTombstones()
+	{
+		return this.tombstones > 0;
+	}
+	
+	/**
+	 * Removes a handled from the list and compacts the list right away
+	 *
+	 * @param h The handled to be removed
+	 * @return Was the handled in the list
+	 */
+	public boolean remove(Handled h)
+	{
+		if (!markRemoved(h))
+			return false;
+		
+		compact();
+		return true;
+	}
+	
+	/**
+	 * Clears the tombstones left by removed handleds. The order of the
+	 * remaining handleds is preserved. A new snapshot is published if the
+	 * list changes.
+	 */
+	public void compact()
+	{
+		if (this.tombstones == 0)
+			return;
+		
+		int newend = 0;
+		for (int i = 0; i < this.end; i++)
+		{
+			Handled h = this.handleds[i];
+			
+			if (h == null)
+				continue;
+			
+			// Moves the handled to the first free slot
+			if (i != newend)
+			{
+				this.handleds[newend] = h;
+				if (this.indices != null)
+					this.indices.put(h, newend);
+			}
+			newend ++;
+		}
+		
+		Arrays.fill(this.handleds, newend, this.end, null);
+		this.end = newend;
+		this.tombstones = 0;
+		
+		this.snapshotoutdated = true;
+		publish();
+	}
+	
+	/**
+	 * Returns the handled at the given index of the latest snapshot. The 
+	 * method can be used by any thread.
+	 *
+	 * @param index The index of the handled
+	 * @return The handled at the given index or null if there is no handled
+	 * there
+	 */
+	public Handled get(int index)
+	{
+		Handled[] snapshot = this.snapshot;
+		
+		if (index < 0 || index >= snapshot.length)
+			return null;
+		
+		return snapshot[index];
+	}
+	
+	/**
+	 * Returns the latest published version of the list. The array must not 
+	 * be modified. Removed handleds are replaced with null.
+	 * 
+	 * @return The latest snapshot of the list
+	 */
+	public Handled[] getSnapshot()
+	{
+		return this.snapshot;
+	}
+	
+	/**
+	 * Publishes the current state of the list to the iterators (if it has 
+	 * changed since the last publish)
+	 */
+	public void publish()
+	{
+		if (!this.snapshotoutdated)
+			return;
+		
+		this.snapshot = (this.end == 0) ? EMPTY : 
+				Arrays.copyOf(this.handleds, this.end);
+		this.snapshotoutdated = false;
+	}
+	
+	/**
+	 * Removes all the handleds from the list
+	 */
+	public void clear()
+	{
+		Arrays.fill(this.handleds, 0, this.end, null);
+		this.indices = null;
+		this.end = 0;
+		this.tombstones = 0;
+		this.snapshot = EMPTY;
+		this.snapshotoutdated = false;
+	}
+	
+	/**
+	 * Sorts the handleds using the given comparator. The sort is stable. 
+	 * The sorted list is published right away.
+	 *
+	 * @param c The comparator used for sorting the handleds
+	 */
+	public void sort(Comparator<Handled> c)
+	{
+		compact();
+		Arrays.sort(this.handleds, 0, this.end, c);
+		
+		// Updates the indices
+		if (this.indices != null)
+		{
+			for (int i = 0; i < this.end; i++)
+			{
+				this.indices.put(this.handleds[i], i);
+			}
+		}
+		
+		this.snapshotoutdated = true;
+		publish();
+	}
+	
+	// Returns the index of the handled or -1 if it isn't in the list
+	private int indexOf(Handled h)
+	{
+		if (h == null)
+			return -1;
+		
+		if (this.indices != null)
+		{
+			Integer index = this.indices.get(h);
+			return (index == null) ? -1 : index;
+		}
+		
+		for (int i = 0; i < this.end; i++)
+		{
+			if (this.handleds[i] == h)
+				return i;
+		}
+		
+		return -1;
+	}
+	
+	
+	// SUBCLASSES	-----------------------------------------------------
+	
+	// Iterates through the living handleds of a snapshot, skipping the 
+	// tombstones. The iterator doesn't fail if the list is modified during 
+	// the iteration
+	private static class HandledIterator implements Iterator<Handled>
+	{
+		// ATTRIBUTES	-------------------------------------------------
+		
+		private Handled[] snapshot;
+		private Handled nexthandled;
+		private int nextindex;
+		
+		
+		// CONSTRUCTOR	-------------------------------------------------
+		
+		public HandledIterator(Handled[] snapshot)
+		{
+			this.snapshot = snapshot;
+			this.nexthandled = null;
+			this.nextindex = 0;
+		}
+		
+		
+		// IMPLEMENTED METHODS	-----------------------------------------
+		
+		@Override
+		public boolean hasNext()
+		{
+			findNext();
+			return this.nexthandled != null;
+		}
+		
+		@Override
+		public Handled next()
+		{
+			findNext();
+			
+			if (this.nexthandled == null)
+				throw new NoSuchElementException();
+			
+			Handled h = this.nexthandled;
+			this.nexthandled = null;
+			return h;
+		}
+		
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+		
+		
+		// OTHER METHODS	---------------------------------------------
+		
+		// The handled is read only once since the slot may be cleared by 
+		// another thread at any time
+		private void findNext()
+		{
+			while (this.nexthandled == null && 
+					this.nextindex < this.snapshot.length)
+			{
+				this.nexthandled = this.snapshot[this.nextindex ++];
+			}
+		}
+	}
+}
@@ -1,14 +1,17 @@
 package utopia_handlers;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.locks.ReentrantLock;
 
 import utopia_handleds.Handled;
+import utopia_handleds.HandledOwner;
+import utopia_handleds.OwnedHandled;
 
 /**
  * Handlers specialize in handling certain types of objects. Each handler can 
@@ -17,18 +20,31 @@ import utopia_handleds.Handled;
  * @author Mikko Hilpinen.
  *         Created 8.12.2012.
  */
-public abstract class Handler implements Handled
+public abstract class Handler implements Handled, HandledOwner
 {
 	// ATTRIBUTES	-----------------------------------------------------
 	
-	private LinkedList<Handled> handleds;
-	private ArrayList<Handled> handledstoberemoved, handledstobeadded;
+	// The queues are created when first needed
+	private HandledList handleds;
+	private volatile ConcurrentLinkedQueue<Handled> handledstoberemoved, 
+			handledstobeadded;
 	private boolean autodeath;
 	private boolean killed;
 	private boolean started; // Have any objects been added to the handler yet
 	private boolean disabled; // Has the handler been temporarily disabled
 	
-	private HashMap<HandlingOperation, ReentrantLock> locks;
+	private ReentrantLock handlelock; // Null if the handler isn't thread-safe
+	
+	// How many handleds may currently need handling (active / visible, etc.)
+	private int activehandleds;
+	private volatile boolean containsactive;
+	// The handlers this handler has been added to (null if there are none). 
+	// Only used while synchronized to this handler
+	private ArrayList<Handler> superhandlers;
+	
+	// Created when first needed. Pool threads may handle the handler at the 
+	// same time so the metrics are only created once.
+	private volatile HandlerMetrics metrics;
 	
 	
 	// CONSTRUCTOR	-----------------------------------------------------
@@ -42,19 +58,38 @@ public abstract class Handler implements Handled
 	 * @param superhandler The handler that will handle the object (optional)
 	 */
 	public Handler(boolean autodeath, Handler superhandler)
+	{
+		this(autodeath, true, superhandler);
+	}
+	
+	/**
+	 * Creates a new handler that is still empty. Handled objects must be added 
+	 * manually later. If autodeath is set on, the handled will be destroyed as 
+	 * soon as it becomes empty.<p>
+	 * 
+	 * Handlers that are only handled and updated by a single thread don't 
+	 * need to be thread-safe. Such handlers don't use locks, which makes them 
+	 * lighter. Handleds can still be added and removed from any thread.
+	 *
+	 * @param autodeath Will the handler die automatically when it becomes empty
+	 * @param threadsafe Can the handleds be handled by multiple threads
+	 * @param superhandler The handler that will handle the object (optional)
+	 */
+	public Handler(boolean autodeath, boolean threadsafe, Handler superhandler)
 	{
 		// Initializes attributes
 		this.autodeath = autodeath;
 		this.killed = false;
-		this.handleds = new LinkedList<Handled>();
-		this.handledstobeadded = new ArrayList<Handled>();
-		this.handledstoberemoved = new ArrayList<Handled>();
+		this.handleds = new HandledList();
+		this.handledstobeadded = null;
+		this.handledstoberemoved = null;
 		this.started = false;
 		this.disabled = false;
-		this.locks = new HashMap<HandlingOperation, ReentrantLock>();
-		this.locks.put(HandlingOperation.HANDLE, new ReentrantLock());
-		this.locks.put(HandlingOperation.ADD, new ReentrantLock());
-		this.locks.put(HandlingOperation.REMOVE, new ReentrantLock());
+		this.handlelock = threadsafe ? new ReentrantLock() : null;
+		this.activehandleds = 0;
+		this.containsactive = false;
+		this.superhandlers = null;
+		this.metrics = null;
 		
 		// Tries to add itself to the superhandler
 		if (superhandler != null)
@@ -119,6 +154,27 @@ public abstract class Handler implements Handled
 		killWithoutKillingHandleds();
 	}
 	
+	@Override
+	public void onHandledDeath(Handled h)
+	{
+		// Removes the handled right away if the handleds aren't being 
+		// updated in another thread. The removal leaves a tombstone that is 
+		// cleared in the next status update. Otherwise the removal is queued. 
+		// Handlers without a lock can't know which thread kills the handled 
+		// so they always queue the removal.
+		if (tryLockHandleds())
+		{
+			try
+			{
+				if (this.handleds.markRemoved(h))
+					onHandledRemoved(h);
+			}
+			finally { unlockHandleds(); }
+		}
+		else
+			removeHandled(h);
+	}
+	
 	/**
 	 * Kills the handler but spares the handleds in the handler. This should 
 	 * be used instead of kill -method if, for example, the handleds are still 
@@ -127,11 +183,24 @@ public abstract class Handler implements Handled
 	public void killWithoutKillingHandleds()
 	{
 		// Safely clears the handleds
-		clearOperationList(HandlingOperation.HANDLE);
-		// Safely clears the added handleds
-		clearOperationList(HandlingOperation.ADD);
-		// And finally clears the removed handleds
-		clearOperationList(HandlingOperation.REMOVE);
+		lockHandleds();
+		try
+		{
+			for (Handled h : this.handleds)
+			{
+				onHandledRemoved(h);
+			}
+			
+			this.handleds.clear();
+		}
+		finally { unlockHandleds(); }
+		
+		// Clears the added and removed handleds (the queues are thread-safe)
+		clearAddQueue();
+		while (pollQueue(this.handledstoberemoved) != null)
+		{
+			// Empties the queue
+		}
 		
 		this.killed = true;
 	}
@@ -158,42 +227,51 @@ public abstract class Handler implements Handled
 			return;
 		
 		// Goes through all the handleds
+		HandlerMetrics metrics = getMetrics();
+		long starttime = (metrics == null) ? -1 : metrics.startHandling();
 		boolean handlingskipped = false;
-		this.locks.get(HandlingOperation.HANDLE).lock();
-
-		try
+		
+		// The handleds are iterated from the latest snapshot so the 
+		// handler can be updated in another thread at the same time. The 
+		// removed handleds are cleared from the snapshot
+		Handled[] handleds = selectHandleds(this.handleds.getSnapshot(), 
+				operator);
+		
+		for (int i = 0; i < handleds.length; i++)
 		{
-			Iterator<Handled> iterator = this.handleds.iterator();
+			if (this.killed)
+				break;
 			
-			while (iterator.hasNext())
-			{
-				if (this.killed)
-					break;
-				
-				Handled h = iterator.next();
-				
-				if (!h.isDead() /*&& !this.handledstoberemoved.containsKey(h)*/)
-				{	
-					// Doesn't handle objects after handleobjects has returned 
-					// false. Continues through the cycle though to remove dead 
-					// handleds
-					if (!handlingskipped)
+			Handled h = handleds[i];
+			
+			if (h == null)
+				continue;
+			
+			// Owned handleds inform the handler about their death so 
+			// they don't need to be checked
+			if (h instanceof OwnedHandled || !h.isDead())
+			{	
+				// Doesn't handle objects after handleobjects has returned 
+				// false. Continues through the cycle though to remove dead 
+				// handleds
+				if (!handlingskipped)
+				{
+					if (operator == null)
 					{
-						if (operator == null)
-						{
-							if (!handleObject(h))
-								handlingskipped = true;
-							
-						}
-						else if (!operator.handleObject(h))
+						if (!handleObject(h))
 							handlingskipped = true;
+						
 					}
+					else if (!operator.handleObject(h))
+						handlingskipped = true;
 				}
-				else
-					removeHandled(h);
 			}
+			else
+				removeHandled(h);
 		}
-		finally { this.locks.get(HandlingOperation.HANDLE).unlock(); }
+		
+		if (metrics != null)
+			metrics.endHandling(starttime);
 		
 		updateStatus();
 	}
@@ -211,10 +289,29 @@ public abstract class Handler implements Handled
 	}
 	
 	/**
-	 * @return The iterator of the handled list
+	 * Selects the handleds that are handled in a handleObjects call. 
+	 * Subclasses that know beforehand which handleds need handling may 
+	 * override this so that the rest aren't visited at all. The handleds 
+	 * that aren't selected aren't checked for death either.
+	 *
+	 * @param snapshot The latest snapshot of the handleds. May contain 
+	 * null values, which are skipped.
+	 * @param operator The operator used in the handling. Null if the 
+	 * default handleObject(Handled) is used.
+	 * @return The handleds that will be handled, in handling order
+	 * @see #handleObjects(HandlingOperator)
+	 */
+	protected Handled[] selectHandleds(Handled[] snapshot, 
+			HandlingOperator operator)
+	{
+		return snapshot;
+	}
+	
+	/**
+	 * @return An iterator that goes through the latest snapshot of the 
+	 * handled list. The handleds added after the last status update are not 
+	 * included.
 	 * @see #handleObjects()
-	 * @warning This method is not very safe and should not be used if 
-	 * handleObjects() can be used instead
 	 */
 	protected Iterator<Handled> getIterator()
 	{
@@ -238,18 +335,56 @@ public abstract class Handler implements Handled
 			return;
 		}
 		
-		// Performs necessary checks
-		if (h != this && !this.handleds.contains(h) && 
-				!this.handledstobeadded.contains(h))
+		// Adds the handled to the queue. Duplicates are skipped when the 
+		// queue is emptied
+		if (h != this)
 		{
-			// Adds the handled to the queue
-			addToOperationList(HandlingOperation.ADD, h);
+			// Queued handleds may need handling as well
+			changeActiveHandledAmount(1);
+			getAddQueue().offer(h);
 			this.started = true;
-			//System.out.println(this + " adds a handled to queue (now " + 
-			//			this.handledstobeadded.size() + ")");
 		}
 	}
 	
+	/**
+	 * Adds multiple objects to the handled objects at once. This is faster 
+	 * than adding the objects one by one.
+	 *
+	 * @param handleds The objects to be handled
+	 */
+	protected void addHandleds(Collection<? extends Handled> handleds)
+	{
+		// Checks the handleds and skips the duplicates
+		Class<?> supportedclass = getSupportedClass();
+		IdentityHashMap<Handled, Boolean> checked = 
+				new IdentityHashMap<Handled, Boolean>(handleds.size());
+		ArrayList<Handled> accepted = new ArrayList<Handled>(handleds.size());
+		
+		for (Handled h : handleds)
+		{
+			if (h == null || h == this)
+				continue;
+			
+			if (!supportedclass.isInstance(h))
+			{
+				System.err.println(getClass().getName() + 
+						" does not support given object's class");
+				continue;
+			}
+			
+			if (checked.put(h, Boolean.TRUE) == null)
+				accepted.add(h);
+		}
+		
+		if (accepted.isEmpty())
+			return;
+		
+		// Adds the handleds to the queue all at once
+		changeActiveHandledAmount(accepted.size());
+		getAddQueue().addAll(accepted);
+		this.started = true;
+	}
+	
 	/**
 	 * Removes a handled from the group of handled objects
 	 *
@@ -257,11 +392,30 @@ public abstract class Handler implements Handled
 	 */
 	public void removeHandled(Handled h)
 	{
-		if (h != null && !this.handledstoberemoved.contains(h) && 
-				this.handleds.contains(h))
+		// Handleds that aren't in the handler are skipped when the queue is 
+		// emptied
+		if (h != null)
+			getRemoveQueue().offer(h);
+	}
+	
+	/**
+	 * Removes multiple handleds from the group of handled objects at once
+	 *
+	 * @param handleds The handled objects to be removed
+	 */
+	public void removeHandleds(Collection<? extends Handled> handleds)
+	{
+		ArrayList<Handled> removed = new ArrayList<Handled>(handleds.size());
+		for (Handled h : handleds)
 		{
-			addToOperationList(HandlingOperation.REMOVE, h);
+			if (h != null)
+				removed.add(h);
 		}
+		
+		// Handleds that aren't in the handler are skipped when the queue is 
+		// emptied
+		if (!removed.isEmpty())
+			getRemoveQueue().addAll(removed);
 	}
 	
 	/**
@@ -269,7 +423,7 @@ public abstract class Handler implements Handled
 	 */
 	public void removeAllHandleds()
 	{
-		this.locks.get(HandlingOperation.HANDLE).lock();
+		lockHandleds();
 		try
 		{
 			Iterator<Handled> iter = getIterator();
@@ -279,10 +433,10 @@ public abstract class Handler implements Handled
 				removeHandled(iter.next());
 			}
 		}
-		finally { this.locks.get(HandlingOperation.HANDLE).unlock(); }
+		finally { unlockHandleds(); }
 		
 		// Also cancels the adding of new handleds
-		clearOperationList(HandlingOperation.ADD);
+		clearAddQueue();
 	}
 	
 	/**
@@ -294,6 +448,7 @@ public abstract class Handler implements Handled
 	public void disable()
 	{
 		this.disabled = true;
+		updateActiveState();
 	}
 	
 	/**
@@ -303,6 +458,25 @@ public abstract class Handler implements Handled
 	public void endDisable()
 	{
 		this.disabled = false;
+		updateActiveState();
+	}
+	
+	/**
+	 * Tells whether the handler contains handleds that may need handling. 
+	 * Subhandlers are counted only if they contain such handleds themselves 
+	 * while other handleds are always counted, since they are checked 
+	 * separately when they are handled. The value is updated as the handleds 
+	 * are added and removed and as the subhandlers inform their changes so 
+	 * the check doesn't go through the handleds.
+	 *
+	 * @return Does the handler contain handleds that may need handling
+	 */
+	protected boolean containsActiveHandleds()
+	{
+		// The queued handleds are already counted but the dead ones may 
+		// need removing
+		updateStatus();
+		return this.containsactive;
 	}
 	
 	/**
@@ -323,11 +497,74 @@ public abstract class Handler implements Handled
 	}
 	
 	/**
-	 * @return The first handled in the list of handleds
+	 * Collects the metrics recorded by this handler and all of its 
+	 * subhandlers. The metrics are only recorded while they are enabled.
+	 *
+	 * @return A snapshot of the metrics of the handler tree
+	 * @see HandlerMetrics#setEnabled(boolean)
+	 */
+	public HandlerMetrics.Snapshot getMetricsSnapshot()
+	{
+		// Finds the subhandlers
+		ArrayList<Handler> subhandlers = new ArrayList<Handler>();
+		int handlednumber = 0;
+		
+		lockHandleds();
+		try
+		{
+			handlednumber = getHandledNumber();
+			
+			for (Handled h : this.handleds)
+			{
+				if (h instanceof Handler)
+					subhandlers.add((Handler) h);
+			}
+		}
+		finally { unlockHandleds(); }
+		
+		// Collects the subhandlers' metrics
+		ArrayList<HandlerMetrics.Snapshot> children = 
+				new ArrayList<HandlerMetrics.Snapshot>(subhandlers.size());
+		for (Handler subhandler : subhandlers)
+		{
+			children.add(subhandler.getMetricsSnapshot());
+		}
+		
+		return new HandlerMetrics.Snapshot(getMetricsName(), handlednumber, 
+				this.metrics, children);
+	}
+	
+	/**
+	 * @return The name used for the handler in the metrics snapshots
+	 * @see #getMetricsSnapshot()
+	 */
+	protected String getMetricsName()
+	{
+		String name = getClass().getSimpleName();
+		if (name.isEmpty())
+			name = getClass().getName();
+		
+		return name;
+	}
+	
+	/**
+	 * Prints the metrics of the handler and its subhandlers. This should be 
+	 * used for testing purposes only.
+	 * 
+	 * @see #getMetricsSnapshot()
+	 */
+	public void printMetrics()
+	{
+		System.out.print(getMetricsSnapshot());
+	}
+	
+	/**
+	 * @return The first handled in the list of handleds or null if the 
+	 * handler is empty
 	 */
 	protected Handled getFirstHandled()
 	{
-		return this.handleds.getFirst();
+		return this.handleds.get(0);
 	}
 	
 	/**
@@ -359,10 +596,33 @@ public abstract class Handler implements Handled
 	 */
 	protected void updateStatus()
 	{
-		// Adds the new handleds (if possible)
-		addNewHandleds();
-		// Removes the removed handleds (if possible)
-		clearRemovedHandleds();
+		// If there are no changes, the handling lock isn't needed at all
+		if (queueIsEmpty(this.handledstobeadded) && 
+				queueIsEmpty(this.handledstoberemoved) && 
+				!this.handleds.hasTombstones())
+			return;
+		
+		HandlerMetrics metrics = getMetrics();
+		long starttime = (metrics == null) ? -1 : metrics.startUpdating();
+		int addednumber = 0, removednumber = 0;
+		
+		lockHandleds();
+		try
+		{
+			// Adds the new handleds
+			addednumber = addNewHandleds();
+			// Removes the removed handleds
+			removednumber = clearRemovedHandleds();
+			
+			// Clears the tombstones and publishes the changes for the 
+			// iterating threads
+			this.handleds.compact();
+			this.handleds.publish();
+		}
+		finally { unlockHandleds(); }
+		
+		if (metrics != null)
+			metrics.endUpdating(starttime, addednumber, removednumber);
 	}
 	
 	/**
@@ -372,138 +632,237 @@ public abstract class Handler implements Handled
 	 */
 	protected void sortHandleds(Comparator<Handled> c)
 	{
-		Collections.sort(this.handleds, c);
+		HandlerMetrics metrics = getMetrics();
+		long starttime = (metrics == null) ? -1 : metrics.startSorting();
+		
+		lockHandleds();
+		try
+		{
+			this.handleds.sort(c);
+		}
+		finally { unlockHandleds(); }
+		
+		if (metrics != null)
+			metrics.endSorting(starttime);
 	}
 	
-	// This should be called at the end of the iteration
-	private void clearRemovedHandleds()
+	// Empties the remove queue and returns the number of removed handleds. 
+	// The handle lock should be held when this is called
+	private int clearRemovedHandleds()
 	{
-		if (this.handledstoberemoved.isEmpty())
-			return;
-		
-		this.locks.get(HandlingOperation.REMOVE).lock();
-		try
+		// Removes all removed handleds from handleds. The removed 
+		// handleds leave tombstones which are cleared all at once 
+		// afterwards
+		int removednumber = 0;
+		Handled h;
+		while ((h = pollQueue(this.handledstoberemoved)) != null)
 		{
-			// Removes all removed handleds from handleds or added or 
-			// inserted handleds
-			for (Handled h : this.handledstoberemoved)
+			if (this.handleds.markRemoved(h))
 			{
-				if (this.handleds.contains(h))
-					removeFromOperationList(HandlingOperation.HANDLE, h);
+				onHandledRemoved(h);
+				removednumber ++;
 			}
-			
-			// Empties the removing list
-			// TODO: One might want to change these into clearoperationList(...)
-			this.handledstoberemoved.clear();
 		}
-		finally { this.locks.get(HandlingOperation.REMOVE).unlock(); }
+		
+		return removednumber;
 	}
 	
-	private void addNewHandleds()
+	// Empties the add queue and returns the number of added handleds. The 
+	// handle lock should be held when this is called
+	private int addNewHandleds()
 	{
-		// If the handler has no handleds to be added, does nothing
-		if (this.handledstobeadded.isEmpty())
-			return;
-		
-		this.locks.get(HandlingOperation.ADD).lock();
-		try
+		// Adds all handleds from the queue to the handleds (the list skips 
+		// the duplicates)
+		int addednumber = 0;
+		Handled h;
+		while ((h = pollQueue(this.handledstobeadded)) != null)
 		{
-			// Adds all handleds from the addlist to the handleds
-			for (Handled h : this.handledstobeadded)
+			// The handled is no longer queued
+			changeActiveHandledAmount(-1);
+			
+			if (this.handleds.add(h))
 			{
-				addToOperationList(HandlingOperation.HANDLE, h);
+				onHandledAdded(h);
+				addednumber ++;
 			}
-			
-			// Clears the addlist
-			this.handledstobeadded.clear();
 		}
-		finally { this.locks.get(HandlingOperation.ADD).unlock(); }
+		
+		return addednumber;
 	}
 	
-	// Thread-safely clears a data structure used with the given operation type
-	// TODO: Try to figure out a way to make this without copy-paste, though 
-	// it might be difficult since there are no function pointers in java
-	private void clearOperationList(HandlingOperation o)
+	// Returns the handler's metrics or null if metrics are not recorded
+	private HandlerMetrics getMetrics()
 	{
-		// Checks the argument
-		if (o == null)
-			return;
-		
-		// Locks the correct lock
-		this.locks.get(o).lock();
+		if (!HandlerMetrics.isEnabled())
+			return null;
 		
-		try
+		HandlerMetrics metrics = this.metrics;
+		if (metrics == null)
 		{
-			switch (o)
+			synchronized (this)
 			{
-				// I really wish I had function pointers in use now...
-				case HANDLE: this.handleds.clear(); break;
-				case ADD: this.handledstobeadded.clear(); break;
-				case REMOVE: this.handledstoberemoved.clear(); break;
+				if (this.metrics == null)
+					this.metrics = new HandlerMetrics();
+				metrics = this.metrics;
 			}
 		}
-		finally
+		
+		return metrics;
+	}
+	
+	// Cancels the adding of all the queued handleds
+	private void clearAddQueue()
+	{
+		while (pollQueue(this.handledstobeadded) != null)
 		{
-			this.locks.get(o).unlock();
+			changeActiveHandledAmount(-1);
 		}
 	}
 	
-	// Thread safely adds an handled to an operation list
-	private void addToOperationList(HandlingOperation o, Handled h)
+	// Counts the new handled and starts listening to its state if it's a 
+	// handler. Owned handleds are asked to inform the handler about their 
+	// death
+	private void onHandledAdded(Handled h)
 	{
-		// Checks the argument
-		if (o == null || h == null)
-			return;
-		
-		// Locks the correct lock
-		this.locks.get(o).lock();
+		if (h instanceof OwnedHandled)
+		{
+			OwnedHandled owned = (OwnedHandled) h;
+			owned.addOwner(this);
+			
+			// The handled may have died before it was added
+			if (h.isDead())
+			{
+				owned.removeOwner(this);
+				this.handleds.markRemoved(h);
+				return;
+			}
+		}
 		
-		try
+		if (h instanceof Handler)
 		{
-			switch (o)
+			Handler subhandler = (Handler) h;
+			
+			// The subhandler can't change its state in between
+			synchronized (subhandler)
 			{
-				case HANDLE: this.handleds.add(h); break;
-				case ADD: this.handledstobeadded.add(h); break;
-				case REMOVE: this.handledstoberemoved.add(h); break;
+				if (subhandler.superhandlers == null)
+					subhandler.superhandlers = new ArrayList<Handler>(1);
+				subhandler.superhandlers.add(this);
+				if (subhandler.containsactive)
+					changeActiveHandledAmount(1);
 			}
 		}
-		finally
+		else
+			changeActiveHandledAmount(1);
+	}
+	
+	// Stops counting the removed handled
+	private void onHandledRemoved(Handled h)
+	{
+		if (h instanceof OwnedHandled)
+			((OwnedHandled) h).removeOwner(this);
+		
+		if (h instanceof Handler)
 		{
-			this.locks.get(o).unlock();
+			Handler subhandler = (Handler) h;
+			
+			synchronized (subhandler)
+			{
+				if (subhandler.superhandlers != null)
+					subhandler.superhandlers.remove(this);
+				if (subhandler.containsactive)
+					changeActiveHandledAmount(-1);
+			}
 		}
+		else
+			changeActiveHandledAmount(-1);
+	}
+	
+	private synchronized void changeActiveHandledAmount(int change)
+	{
+		this.activehandleds += change;
+		updateActiveState();
 	}
 	
-	// Thread safely removes an handled from an operation list
-	private void removeFromOperationList(HandlingOperation o, Handled h)
+	// Informs the superhandlers if the handler starts or stops containing 
+	// handleds that need handling
+	private synchronized void updateActiveState()
 	{
-		// Checks the argument
-		if (o == null || h == null)
+		boolean newstate = !this.disabled && this.activehandleds > 0;
+		
+		if (newstate == this.containsactive)
 			return;
 		
-		// Locks the correct lock
-		this.locks.get(o).lock();
+		this.containsactive = newstate;
+		if (this.superhandlers == null)
+			return;
 		
-		try
+		for (Handler superhandler : this.superhandlers)
+		{
+			superhandler.changeActiveHandledAmount(newstate ? 1 : -1);
+		}
+	}
+	
+	// Locks the handleds for the current thread. Handlers that aren't 
+	// thread-safe don't lock the handleds at all
+	private void lockHandleds()
+	{
+		if (this.handlelock != null)
+			this.handlelock.lock();
+	}
+	
+	private void unlockHandleds()
+	{
+		if (this.handlelock != null)
+			this.handlelock.unlock();
+	}
+	
+	// Tries to lock the handleds without waiting. Handlers that aren't 
+	// thread-safe can't be locked at all.
+	private boolean tryLockHandleds()
+	{
+		return this.handlelock != null && this.handlelock.tryLock();
+	}
+	
+	private ConcurrentLinkedQueue<Handled> getAddQueue()
+	{
+		if (this.handledstobeadded == null)
 		{
-			switch (o)
+			synchronized (this)
 			{
-				case HANDLE: this.handleds.remove(h); break;
-				case ADD: this.handledstobeadded.remove(h); break;
-				case REMOVE: this.handledstoberemoved.remove(h); break;
+				if (this.handledstobeadded == null)
+					this.handledstobeadded = new ConcurrentLinkedQueue<Handled>();
 			}
 		}
-		finally
+		
+		return this.handledstobeadded;
+	}
+	
+	private ConcurrentLinkedQueue<Handled> getRemoveQueue()
+	{
+		if (this.handledstoberemoved == null)
 		{
-			this.locks.get(o).unlock();
+			synchronized (this)
+			{
+				if (this.handledstoberemoved == null)
+					this.handledstoberemoved = new ConcurrentLinkedQueue<Handled>();
+			}
 		}
+		
+		return this.handledstoberemoved;
 	}
 	
+	private static Handled pollQueue(Queue<Handled> queue)
+	{
+		if (queue == null)
+			return null;
+		
+		return queue.poll();
+	}
 	
-	// ENUMERATIONS	------------------------------------------------------
-	
-	private enum HandlingOperation
+	private static boolean queueIsEmpty(Queue<Handled> queue)
 	{
-		HANDLE, ADD, REMOVE;
+		return queue == null || queue.isEmpty();
 	}
 	
 	
@@ -0,0 +1,473 @@
+package utopia_handlers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HandlerMetrics records how much work a single handler does. The handlers
+ * keep count of the added and removed handleds and measure the time spent
+ * handling objects, updating the handler status and sorting the handleds.
+ * Only every nth operation is timed so that the metrics can be left on
+ * without slowing the program down. The metrics are read with snapshots.<p>
+ *
+ * The metrics are disabled by default and can be enabled for all handlers
+ * at once.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ * @see Handler#getMetricsSnapshot()
+ */
+public class HandlerMetrics
+{
+	// ATTRIBUTES	-----------------------------------------------------
+	
+	private static volatile boolean enabled = false;
+	private static volatile int samplinginterval = 8;
+	
+	private Accumulator handling, updating, sorting;
+	private AtomicLong added, removed, lastadded, lastremoved;
+	// The changes made since the previous handling pass started
+	private AtomicLong passadded, passremoved;
+	
+	
+	// CONSTRUCTOR	-----------------------------------------------------
+	
+	/**
+	 * Creates a new empty set of metrics
+	 */
+	HandlerMetrics()
+	{
+		// Initializes attributes
+		this.handling = new Accumulator();
+		this.updating = new Accumulator();
+		this.sorting = new Accumulator();
+		this.added = new AtomicLong();
+		this.removed = new AtomicLong();
+		this.lastadded = new AtomicLong();
+		this.lastremoved = new AtomicLong();
+		this.passadded = new AtomicLong();
+		this.passremoved = new AtomicLong();
+	}
+	
+	
+	// GETTERS & SETTERS	---------------------------------------------
+	
+	/**
+	 * @return Are the handlers currently recording metrics
+	 */
+	public static boolean isEnabled()
+	{
+		return enabled;
+	}
+	
+	/**
+	 * Changes whether the handlers record metrics or not. Handlers only
+	 * reserve memory for the metrics once they are enabled.
+	 *
+	 * @param enabled Should the handlers record metrics
+	 */
+	public static void setEnabled(boolean enabled)
+	{
+		HandlerMetrics.enabled = enabled;
+	}
+	
+	/**
+	 * Changes how often the handlers measure the duration of their operations
+	 *
+	 * @param interval How many operations there are between measurements.
+	 * 1 means that every operation is measured. (> 0)
+	 */
+	public static void setSamplingInterval(int interval)
+	{
+		samplinginterval = Math.max(1, interval);
+	}
+	
+	
+	// OTHER METHODS	-------------------------------------------------
+	
+	/**
+	 * @return The time the handling started or a negative value if the
+	 * handling shouldn't be measured
+	 */
+	long startHandling()
+	{
+		// The changes are reported per handling pass so that the numbers
+		// drop back to zero when nothing changes
+		this.lastadded.set(this.passadded.getAndSet(0));
+		this.lastremoved.set(this.passremoved.getAndSet(0));
+		
+		return this.handling.start();
+	}
+	
+	/**
+	 * @param starttime The value returned by startHandling
+	 */
+	void endHandling(long starttime)
+	{
+		this.handling.end(starttime);
+	}
+	
+	/**
+	 * @return The time the status update started or a negative value if the
+	 * update shouldn't be measured
+	 */
+	long startUpdating()
+	{
+		return this.updating.start();
+	}
+	
+	/**
+	 * @param starttime The value returned by startUpdating
+	 * @param addednumber How many handleds were added during the update
+	 * @param removednumber How many handleds were removed during the update
+	 */
+	void endUpdating(long starttime, int addednumber, int removednumber)
+	{
+		this.updating.end(starttime);
+		
+		this.added.addAndGet(addednumber);
+		this.removed.addAndGet(removednumber);
+		this.passadded.addAndGet(addednumber);
+		this.passremoved.addAndGet(removednumber);
+	}
+	
+	/**
+	 * @return The time the sorting started or a negative value if the
+	 * sorting shouldn't be measured
+	 */
+	long startSorting()
+	{
+		return this.sorting.start();
+	}
+	
+	/**
+	 * @param starttime The value returned by startSorting
+	 */
+	void endSorting(long starttime)
+	{
+		this.sorting.end(starttime);
+	}
+	
+	
+	// SUBCLASSES	-----------------------------------------------------
+	
+	// Accumulator counts operations and the time used in the measured ones
+	private static class Accumulator
+	{
+		// ATTRIBUTES	-------------------------------------------------
+		
+		private AtomicLong calls, samples, nanos, maxnanos;
+		
+		
+		// CONSTRUCTOR	-------------------------------------------------
+		
+		public Accumulator()
+		{
+			this.calls = new AtomicLong();
+			this.samples = new AtomicLong();
+			this.nanos = new AtomicLong();
+			this.maxnanos = new AtomicLong();
+		}
+		
+		
+		// OTHER METHODS	---------------------------------------------
+		
+		public long start()
+		{
+			if (this.calls.incrementAndGet() % samplinginterval != 0)
+				return -1;
+			
+			return System.nanoTime();
+		}
+		
+		public void end(long starttime)
+		{
+			if (starttime < 0)
+				return;
+			
+			long duration = System.nanoTime() - starttime;
+			
+			this.samples.incrementAndGet();
+			this.nanos.addAndGet(duration);
+			
+			// Updates the maximum duration
+			long max = this.maxnanos.get();
+			while (duration > max && !this.maxnanos.compareAndSet(max, duration))
+			{
+				max = this.maxnanos.get();
+			}
+		}
+		
+		public long getAverageNanos()
+		{
+			long samplenumber = this.samples.get();
+			
+			if (samplenumber == 0)
+				return 0;
+			
+			return this.nanos.get() / samplenumber;
+		}
+	}
+	
+	/**
+	 * Snapshot holds the metrics of a handler and its subhandlers at a certain
+	 * moment. The durations are measured in nanoseconds and the handling
+	 * durations include the handling of the subhandlers.
+	 *
+	 * @author Mikko Hilpinen.
+	 *         Created 18.10.2026.
+	 */
+	public static class Snapshot
+	{
+		// ATTRIBUTES	-------------------------------------------------
+		
+		private String name;
+		private int handlednumber;
+		private long handlings, averagehandling, maxhandling, averageupdate,
+				maxupdate, sortings, averagesort, added, removed, lastadded,
+				lastremoved;
+		private List<Snapshot> children;
+		
+		
+		// CONSTRUCTOR	-------------------------------------------------
+		
+		/**
+		 * Creates a new snapshot of the given metrics
+		 *
+		 * @param name The name of the handler
+		 * @param handlednumber How many handleds the handler has
+		 * @param metrics The metrics of the handler (null if the handler
+		 * hasn't recorded any)
+		 * @param children The snapshots of the handler's subhandlers
+		 */
+		Snapshot(String name, int handlednumber, HandlerMetrics metrics,
+				List<Snapshot> children)
+		{
+			// Initializes attributes
+			this.name = name;
+			this.handlednumber = handlednumber;
+			this.children = Collections.unmodifiableList(children);
+			
+			if (metrics != null)
+			{
+				this.handlings = metrics.handling.calls.get();
+				this.averagehandling = metrics.handling.getAverageNanos();
+				this.maxhandling = metrics.handling.maxnanos.get();
+				this.averageupdate = metrics.updating.getAverageNanos();
+				this.maxupdate = metrics.updating.maxnanos.get();
+				this.sortings = metrics.sorting.calls.get();
+				this.averagesort = metrics.sorting.getAverageNanos();
+				this.added = metrics.added.get();
+				this.removed = metrics.removed.get();
+				this.lastadded = metrics.lastadded.get();
+				this.lastremoved = metrics.lastremoved.get();
+			}
+		}
+		
+		
+		// IMPLEMENTED METHODS	-----------------------------------------
+		
+		@Override
+		public String toString()
+		{
+			StringBuilder builder = new StringBuilder();
+			appendTo(builder, 0, 0);
+			return builder.toString();
+		}
+		
+		
+		// GETTERS & SETTERS	-----------------------------------------
+		
+		/**
+		 * @return The name of the handler
+		 */
+		public String getName()
+		{
+			return this.name;
+		}
+		
+		/**
+		 * @return How many handleds the handler had
+		 */
+		public int getHandledNumber()
+		{
+			return this.handlednumber;
+		}
+		
+		/**
+		 * @return How many times the handler has handled its objects
+		 */
+		public long getHandlingNumber()
+		{
+			return this.handlings;
+		}
+		
+		/**
+		 * @return How long handling the objects takes on average (ns)
+		 */
+		public long getAverageHandlingNanos()
+		{
+			return this.averagehandling;
+		}
+		
+		/**
+		 * @return How long the longest measured handling took (ns)
+		 */
+		public long getMaxHandlingNanos()
+		{
+			return this.maxhandling;
+		}
+		
+		/**
+		 * @return How long a status update that changes the handleds takes
+		 * on average (ns)
+		 */
+		public long getAverageUpdateNanos()
+		{
+			return this.averageupdate;
+		}
+		
+		/**
+		 * @return How long the longest measured status update took (ns)
+		 */
+		public long getMaxUpdateNanos()
+		{
+			return this.maxupdate;
+		}
+		
+		/**
+		 * @return How many times the handleds have been sorted
+		 */
+		public long getSortingNumber()
+		{
+			return this.sortings;
+		}
+		
+		/**
+		 * @return How long sorting the handleds takes on average (ns)
+		 */
+		public long getAverageSortNanos()
+		{
+			return this.averagesort;
+		}
+		
+		/**
+		 * @return How many handleds have been added to the handler in total
+		 */
+		public long getAddedNumber()
+		{
+			return this.added;
+		}
+		
+		/**
+		 * @return How many handleds have been removed from the handler in total
+		 */
+		public long getRemovedNumber()
+		{
+			return this.removed;
+		}
+		
+		/**
+		 * @return How many handleds were added between the two latest
+		 * handling passes
+		 */
+		public long getLastAddedNumber()
+		{
+			return this.lastadded;
+		}
+		
+		/**
+		 * @return How many handleds were removed between the two latest
+		 * handling passes
+		 */
+		public long getLastRemovedNumber()
+		{
+			return this.lastremoved;
+		}
+		
+		/**
+		 * @return The snapshots of the subhandlers
+		 */
+		public List<Snapshot> getChildren()
+		{
+			return this.children;
+		}
+		
+		
+		// OTHER METHODS	---------------------------------------------
+		
+		/**
+		 * Creates a description of the handlers in the tree that take at
+		 * least the given time to handle their objects. Subhandlers of
+		 * handlers that are too fast are not included.
+		 *
+		 * @param minhandlingnanos How long the handling must take on
+		 * average for the handler to be included (ns)
+		 * @return A description of the slow part of the tree
+		 */
+		public String describeSlowerThan(long minhandlingnanos)
+		{
+			StringBuilder builder = new StringBuilder();
+			appendTo(builder, 0, minhandlingnanos);
+			return builder.toString();
+		}
+		
+		/**
+		 * @return The snapshots of the handlers in this tree in a list,
+		 * ordered from the slowest to the fastest handling
+		 */
+		public List<Snapshot> getSlowestHandlers()
+		{
+			ArrayList<Snapshot> snapshots = new ArrayList<Snapshot>();
+			collectTo(snapshots);
+			Collections.sort(snapshots, new Comparator<Snapshot>()
+			{
+				@Override
+				public int compare(Snapshot s1, Snapshot s2)
+				{
+					return Long.compare(s2.averagehandling, s1.averagehandling);
+				}
+			});
+			
+			return snapshots;
+		}
+		
+		private void collectTo(List<Snapshot> snapshots)
+		{
+			snapshots.add(this);
+			for (Snapshot child : this.children)
+			{
+				child.collectTo(snapshots);
+			}
+		}
+		
+		private void appendTo(StringBuilder builder, int indentation,
+				long minhandlingnanos)
+		{
+			if (this.averagehandling < minhandlingnanos)
+				return;
+			
+			for (int i = 0; i < indentation; i++)
+			{
+				builder.append("  ");
+			}
+			
+			builder.append(this.name + ": " + this.handlednumber +
+					" handleds, handling " + this.averagehandling / 1000 +
+					" us (max " + this.maxhandling / 1000 + " us), update " +
+					this.averageupdate / 1000 + " us, sort " +
+					this.averagesort / 1000 + " us (" + this.sortings +
+					"x), added " + this.lastadded + " / removed " +
+					this.lastremoved + " (total " + this.added + " / " +
+					this.removed + ")\n");
+			
+			for (Snapshot child : this.children)
+			{
+				child.appendTo(builder, indentation + 1, minhandlingnanos);
+			}
+		}
+	}
+}
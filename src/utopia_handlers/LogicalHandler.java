@@ -26,17 +26,28 @@ public abstract class LogicalHandler extends Handler implements LogicalHandled
 		super(autodeath, superhandler);
 	}
 	
+	/**
+	 * Creates a new logicalhandler. Handled objects must be added manually later
+	 *
+	 * @param autodeath Will the handler die if it runs out of living handleds
+	 * @param threadsafe Can the handleds be handled by multiple threads
+	 * @param superhandler The handler that will handle this handler (optional)
+	 * @see Handler#Handler(boolean, boolean, Handler)
+	 */
+	public LogicalHandler(boolean autodeath, boolean threadsafe, 
+			LogicalHandler superhandler)
+	{
+		super(autodeath, threadsafe, superhandler);
+	}
+	
 	
 	// IMPLEMENTED METHODS	-----------------------------------------------
 
 	@Override
 	public boolean isActive()
 	{
-		// Tests if any handlers are active
-		ActiveCheckOperator checkoperator = new ActiveCheckOperator();
-		handleObjects(checkoperator);
-		
-		return checkoperator.isActive();
+		// The handler keeps count of the handleds that may be active
+		return containsActiveHandleds();
 	}
 
 	@Override
@@ -83,43 +94,4 @@ public abstract class LogicalHandler extends Handler implements LogicalHandled
 			return true;
 		}	
 	}
-	
-	private class ActiveCheckOperator extends HandlingOperator
-	{
-		// ATTRIBUTES	-------------------------------------------------
-		
-		private boolean foundactive;
-		
-		
-		// CONSTRUCTOR	-------------------------------------------------
-		
-		public ActiveCheckOperator()
-		{
-			this.foundactive = false;
-		}
-		
-		
-		// IMPLEMENTED METHODS	-----------------------------------------
-		
-		@Override
-		protected boolean handleObject(Handled h)
-		{
-			// Checks if the handled is active
-			if (((LogicalHandled) h).isActive())
-			{
-				this.foundactive = true;
-				return false;
-			}
-			
-			return true;
-		}
-		
-		
-		// GETTERS & SETTERS	-----------------------------------------
-		
-		public boolean isActive()
-		{
-			return this.foundactive;
-		}
-	}
 }
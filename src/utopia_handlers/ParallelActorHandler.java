@@ -0,0 +1,199 @@
+package utopia_handlers;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import utopia_handleds.Actor;
+import utopia_handleds.Handled;
+import utopia_handleds.ParallelActor;
+
+/**
+ * ParallelActorHandler is an actorHandler that informs the parallelActors it 
+ * handles in multiple threads. The parallelActors are split into chunks that 
+ * are acted in a forkJoinPool and the handler waits until all of them have 
+ * acted before the step ends. Other actors are informed normally in the 
+ * handler's thread before the parallelActors. If the handler doesn't have a 
+ * pool, the parallelActors are informed in the handler's thread as well.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ * @see ParallelActor
+ */
+public class ParallelActorHandler extends ActorHandler
+{
+	// ATTRIBUTES	------------------------------------------------------
+	
+	private static ForkJoinPool sharedpool = null;
+	
+	private volatile ForkJoinPool pool;
+	private int chunksize;
+	private double laststeplength;
+	private ArrayList<Actor> parallelactors;
+	
+	
+	// CONSTRUCTOR	------------------------------------------------------
+	
+	/**
+	 * Creates a new parallelActorHandler that uses the pool shared between 
+	 * the parallelActorHandlers. Actors must be added manually later.
+	 *
+	 * @param autodeath Will the handler die if there are no living actors to be handled
+	 * @param superhandler The handler that will call the act-event of the object (optional)
+	 * @param chunksize How many parallelActors are acted in a single task at 
+	 * most. Larger chunks are better for actors that act fast. (> 0)
+	 */
+	public ParallelActorHandler(boolean autodeath, ActorHandler superhandler, 
+			int chunksize)
+	{
+		this(autodeath, superhandler, chunksize, getSharedPool());
+	}
+	
+	/**
+	 * Creates a new parallelActorHandler that uses the given pool. Actors 
+	 * must be added manually later.
+	 *
+	 * @param autodeath Will the handler die if there are no living actors to be handled
+	 * @param superhandler The handler that will call the act-event of the object (optional)
+	 * @param chunksize How many parallelActors are acted in a single task at 
+	 * most. Larger chunks are better for actors that act fast. (> 0)
+	 * @param pool The pool that runs the parallelActors' act methods (null 
+	 * if the parallelActors should be informed in the handler's thread)
+	 */
+	public ParallelActorHandler(boolean autodeath, ActorHandler superhandler, 
+			int chunksize, ForkJoinPool pool)
+	{
+		super(autodeath, superhandler);
+		
+		// Initializes attributes
+		this.chunksize = Math.max(1, chunksize);
+		this.pool = pool;
+		this.laststeplength = 0;
+		this.parallelactors = new ArrayList<Actor>();
+	}
+	
+	
+	// IMPLEMENTED METHODS	----------------------------------------------
+	
+	@Override
+	public void act(double steps)
+	{
+		// Informs the normal actors and collects the parallel ones
+		this.laststeplength = steps;
+		super.act(steps);
+		
+		// Acts the parallel actors and waits until they are done
+		try
+		{
+			ForkJoinPool pool = this.pool;
+			
+			if (this.parallelactors.isEmpty())
+				return;
+			else if (pool == null)
+			{
+				for (Actor a : this.parallelactors)
+				{
+					a.act(steps);
+				}
+			}
+			else
+				pool.invoke(new ActTask(0, this.parallelactors.size()));
+		}
+		finally
+		{
+			this.parallelactors.clear();
+		}
+	}
+	
+	@Override
+	protected boolean handleObject(Handled h)
+	{
+		// Parallel actors are acted after the others
+		if (h instanceof ParallelActor)
+		{
+			Actor a = (Actor) h;
+			
+			if (a.isActive())
+				this.parallelactors.add(a);
+			
+			return true;
+		}
+		
+		return super.handleObject(h);
+	}
+	
+	
+	// GETTERS & SETTERS	-----------------------------------------------
+	
+	/**
+	 * Changes the pool that runs the parallelActors' act methods
+	 *
+	 * @param pool The pool that runs the parallelActors' act methods (null 
+	 * if the parallelActors should be informed in the handler's thread)
+	 */
+	public void setPool(ForkJoinPool pool)
+	{
+		this.pool = pool;
+	}
+	
+	
+	// OTHER METHODS	---------------------------------------------------
+	
+	/**
+	 * @return The pool shared between the parallelActorHandlers
+	 */
+	protected static synchronized ForkJoinPool getSharedPool()
+	{
+		if (sharedpool == null)
+			sharedpool = new ForkJoinPool();
+		
+		return sharedpool;
+	}
+	
+	
+	// SUBCLASSES	------------------------------------------------------
+	
+	// ActTask acts a range of parallel actors, splitting the range into 
+	// smaller tasks if it's too large
+	private class ActTask extends RecursiveAction
+	{
+		// ATTRIBUTES	-------------------------------------------------
+		
+		private static final long serialVersionUID = 1L;
+		
+		private int start, end;
+		
+		
+		// CONSTRUCTOR	-------------------------------------------------
+		
+		public ActTask(int start, int end)
+		{
+			this.start = start;
+			this.end = end;
+		}
+		
+		
+		// IMPLEMENTED METHODS	-----------------------------------------
+		
+		@Override
+		protected void compute()
+		{
+			// Small enough ranges are acted right away
+			if (this.end - this.start <= ParallelActorHandler.this.chunksize)
+			{
+				for (int i = this.start; i < this.end; i++)
+				{
+					ParallelActorHandler.this.parallelactors.get(i).act(
+							ParallelActorHandler.this.laststeplength);
+				}
+			}
+			// Larger ranges are split in two
+			else
+			{
+				int middle = (this.start + this.end) / 2;
+				invokeAll(new ActTask(this.start, middle), 
+						new ActTask(middle, this.end));
+			}
+		}
+	}
+}
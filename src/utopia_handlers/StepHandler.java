@@ -1,7 +1,15 @@
 package utopia_handlers;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.LockSupport;
+
 import utopia_handleds.Actor;
+import utopia_handleds.Handled;
 import utopia_video.GameWindow;
+import utopia_video.InputSink;
+import utopia_video.RenderSink;
 
 
 /**
@@ -9,6 +17,17 @@ import utopia_video.GameWindow;
  * of milliseconds has passed. All of the actors should be under the command of 
  * this object. This object doesn't stop functioning by itself if it runs out 
  * of actors.<p>
+ * 
+ * The step is divided into stages that are always handled in the same order: 
+ * input, logic, physics, collision, animation and render. Each actor belongs 
+ * to a single stage. Actors that are added without a stage belong to the 
+ * logic stage.<p>
+ * 
+ * By default the actors are informed once per update with a step length 
+ * that depends on the time passed since the last update. In fixed time step 
+ * mode, the actors are always informed with whole steps and the time that 
+ * is left over is used for drawing the objects between their previous and 
+ * current positions.<p>
  *
  * @author Mikko Hilpinen.
  *         Created 29.11.2012.
@@ -21,11 +40,27 @@ public class StepHandler extends ActorHandler implements Runnable
 	 * How long does a single step take in milliseconds.
 	 */
 	public static final int STEPLENGTH = 15;
+	private static final long STEPNANOS = STEPLENGTH * 1000000L;
+	// How many steps may be waiting to be simulated at once when catching up
+	private static final int MAXBACKLOGSTEPS = 60;
+	
+	// The state of the latest fixed step
+	private volatile long stepnumber;
+	private volatile double interpolationalpha;
 	
 	private int callinterval, maxstepspercall;
-	private long nextupdatemillis, lastactmillis;
+	private long nextupdatenanos, lastactnanos, lastframenanos;
 	private boolean running;
-	private GameWindow window;
+	private RenderSink rendersink;
+	private InputSink inputsink;
+	private StageHandler[] stagehandlers;
+	
+	private volatile boolean fixedtimestep;
+	private volatile FrameSkipPolicy frameskippolicy;
+	private long accumulatednanos, lastupdatenanos;
+	
+	private FramePacer pacer;
+	private FrameTimeHistogram frametimes;
 	
 	
 	// CONSTRUCTOR	-------------------------------------------------------
@@ -48,33 +83,178 @@ public class StepHandler extends ActorHandler implements Runnable
 	 * down. The adviced value is from 2 to 3 but it can be 
 	 * different depending on the nature of the software. (> 0)
 	 * @param window The which which created the stepHandler
-	 * @param optimizesteplength Should Aps optimization be activated. The 
-	 * optimization tries to increase / decrease the Aps to the optimal value. 
-	 * Usually this is unnecessary but may counter the computer's tries to 
-	 * limit the Aps
 	 * @see #addActor(utopia_handleds.Actor)
+	 * @see #setPrecisePacing(boolean)
+	 */
+	public StepHandler(int callInterval, int maxStepsPerCall, 
+			GameWindow window)
+	{
+		this(callInterval, maxStepsPerCall, window, window, false);
+	}
+	
+	/**
+	 * This creates a new stephandler. Actors are informed 
+	 * when a certain number of milliseconds has passed. Actors can be 
+	 * added using addActor method.
+	 * 
+	 * @param callInterval How many milliseconds will there at least be between 
+	 * update calls (> 0)
+	 * @param maxStepsPerCall How many steps can be simulated during a single 
+	 * call (> 0)
+	 * @param window The which which created the stepHandler
+	 * @param optimizesteplength Doesn't have an effect anymore. The updates 
+	 * are scheduled at even intervals so the aps doesn't need to be 
+	 * optimized. Precise pacing is not used.
+	 * @deprecated The aps optimization was replaced by the frame pacing. 
+	 * Use {@link #StepHandler(int, int, GameWindow)} instead.
 	 */
+	@Deprecated
 	public StepHandler(int callInterval, int maxStepsPerCall, 
 			GameWindow window, boolean optimizesteplength)
+	{
+		this(callInterval, maxStepsPerCall, window, window, false);
+	}
+	
+	/**
+	 * This creates a new stephandler that isn't tied to a window. Actors are 
+	 * informed when a certain number of milliseconds has passed. Actors can 
+	 * be added using addActor method.
+	 * 
+	 * @param callInterval How many milliseconds will there at least be between 
+	 * update calls (> 0)
+	 * @param maxStepsPerCall How many steps can be simulated during a single 
+	 * call (> 0)
+	 * @param rendersink The sink that is informed when the screen should be 
+	 * redrawn (optional)
+	 * @param inputsink The sink that updates the input at each update 
+	 * (optional)
+	 * @param precisepacing Should the updates be timed with sub-millisecond 
+	 * accuracy
+	 * @see #StepHandler(int, int, GameWindow)
+	 * @see #setPrecisePacing(boolean)
+	 * @see utopia_video.HeadlessDriver
+	 */
+	public StepHandler(int callInterval, int maxStepsPerCall, 
+			RenderSink rendersink, InputSink inputsink, boolean precisepacing)
 	{
 		super(false, null); // Stephandler doesn't have a superhandler
 		
 		// Initializes attributes
 		this.callinterval = callInterval;
 		this.maxstepspercall = maxStepsPerCall;
-		this.nextupdatemillis = 0;
-		this.lastactmillis = System.currentTimeMillis();
+		this.nextupdatenanos = System.nanoTime();
+		this.lastactnanos = this.nextupdatenanos;
+		this.lastframenanos = 0;
 		this.running = false;
-		this.window = window;
+		this.rendersink = rendersink;
+		this.inputsink = inputsink;
+		this.fixedtimestep = false;
+		this.frameskippolicy = FrameSkipPolicy.SLOW_DOWN;
+		this.accumulatednanos = 0;
+		this.lastupdatenanos = 0;
+		this.pacer = new FramePacer(precisepacing);
+		this.frametimes = new FrameTimeHistogram(512);
+		this.stepnumber = 0;
+		this.interpolationalpha = 1;
 		
-		// Creates an ApsOptimizer and adds it to the actors
-		if (optimizesteplength)
-			addActor(new ApsOptimizer(this.callinterval, 8, 4000, 20000, 6));
+		// Creates the stages in the order they are handled
+		this.stagehandlers = new StageHandler[Stage.values().length];
+		for (Stage stage : Stage.values())
+		{
+			this.stagehandlers[stage.ordinal()] = new StageHandler(stage);
+		}
 	}
 	
 	
 	// IMPLEMENTED METHODS	-----------------------------------------------
 
+	@Override
+	protected void addHandled(Handled h)
+	{
+		// The stages are handled by the stephandler itself, other actors are 
+		// handled in the logic stage
+		if (h instanceof StageHandler || !(h instanceof Actor))
+			super.addHandled(h);
+		else
+			getStageHandler(Stage.LOGIC).addActor((Actor) h);
+	}
+	
+	@Override
+	protected void addHandleds(Collection<? extends Handled> handleds)
+	{
+		// Actors are added to the logic stage
+		ArrayList<Actor> actors = new ArrayList<Actor>(handleds.size());
+		for (Handled h : handleds)
+		{
+			if (h instanceof StageHandler || !(h instanceof Actor))
+				super.addHandled(h);
+			else
+				actors.add((Actor) h);
+		}
+		
+		getStageHandler(Stage.LOGIC).addActors(actors);
+	}
+	
+	@Override
+	public void removeHandled(Handled h)
+	{
+		// The stages stay in the stephandler as long as they live
+		if (h instanceof StageHandler && !h.isDead())
+			return;
+		
+		super.removeHandled(h);
+		
+		// The actors were added to one of the stages
+		for (StageHandler stagehandler : this.stagehandlers)
+		{
+			stagehandler.removeHandled(h);
+		}
+	}
+	
+	@Override
+	public void removeHandleds(Collection<? extends Handled> handleds)
+	{
+		ArrayList<Handled> removed = new ArrayList<Handled>(handleds.size());
+		for (Handled h : handleds)
+		{
+			if (!(h instanceof StageHandler) || h.isDead())
+				removed.add(h);
+		}
+		
+		super.removeHandleds(removed);
+		
+		for (StageHandler stagehandler : this.stagehandlers)
+		{
+			stagehandler.removeHandleds(removed);
+		}
+	}
+	
+	@Override
+	public void removeAllHandleds()
+	{
+		// Only the actors are removed from the stages, the stages themselves 
+		// stay
+		for (StageHandler stagehandler : this.stagehandlers)
+		{
+			stagehandler.removeAllHandleds();
+		}
+		
+		super.removeAllHandleds();
+		
+		// Removing all the handleds also cancels the queued additions, which 
+		// may include the stages (the duplicates are skipped)
+		for (StageHandler stagehandler : this.stagehandlers)
+		{
+			super.addHandled(stagehandler);
+		}
+	}
+	
+	@Override
+	public StepHandler getStepHandler()
+	{
+		return this;
+	}
+	
 	@Override
 	public void run()
 	{
@@ -88,6 +268,173 @@ public class StepHandler extends ActorHandler implements Runnable
 	
 	// OTHER METHODS	--------------------------------------------------
 	
+	/**
+	 * Adds a new actor to the given stage
+	 *
+	 * @param a The actor to be added
+	 * @param stage The stage during which the actor is informed
+	 */
+	public void addActor(Actor a, Stage stage)
+	{
+		getStageHandler(stage).addActor(a);
+	}
+	
+	/**
+	 * Returns the handler that informs the actors of the given stage. New 
+	 * handlers can be added under the returned handler.
+	 *
+	 * @param stage The stage of the handler
+	 * @return The handler that handles the given stage
+	 */
+	public ActorHandler getStageHandler(Stage stage)
+	{
+		return this.stagehandlers[stage.ordinal()];
+	}
+	
+	/**
+	 * Makes the parallelActors of the given stage act in the given pool
+	 *
+	 * @param stage The stage whose actors are informed in the pool
+	 * @param pool The pool that runs the parallelActors of the stage (null if 
+	 * the actors should be informed in the stephandler's thread)
+	 * @see utopia_handleds.ParallelActor
+	 */
+	public void setStagePool(Stage stage, ForkJoinPool pool)
+	{
+		this.stagehandlers[stage.ordinal()].setPool(pool);
+	}
+	
+	/**
+	 * @param stage The stage whose duration is checked
+	 * @return How many nanoseconds the stage took during the last step
+	 */
+	public long getLastStageNanos(Stage stage)
+	{
+		return this.stagehandlers[stage.ordinal()].lastnanos;
+	}
+	
+	/**
+	 * @param stage The stage whose duration is checked
+	 * @return How many nanoseconds the stage has taken on average during the 
+	 * recent steps
+	 */
+	public long getAverageStageNanos(Stage stage)
+	{
+		return (long) this.stagehandlers[stage.ordinal()].averagenanos;
+	}
+	
+	/**
+	 * Changes whether the actors are informed with fixed length steps. In 
+	 * fixed time step mode the actors always act one step at a time, and 
+	 * the screen is redrawn between the steps at the call interval given in 
+	 * the constructor.
+	 *
+	 * @param fixed Should the actors be informed with fixed length steps
+	 * @see #setFrameSkipPolicy(FrameSkipPolicy)
+	 * @see #getInterpolationAlpha()
+	 */
+	public void setFixedTimeStep(boolean fixed)
+	{
+		this.fixedtimestep = fixed;
+		
+		if (!fixed)
+			this.interpolationalpha = 1;
+	}
+	
+	/**
+	 * @return Are the actors informed with fixed length steps
+	 */
+	public boolean usesFixedTimeStep()
+	{
+		return this.fixedtimestep;
+	}
+	
+	/**
+	 * Changes whether the updates are timed with sub-millisecond accuracy. 
+	 * Precise pacing spends the last millisecond before each update 
+	 * yielding the thread instead of sleeping, which keeps the frame times 
+	 * more even but uses more CPU.
+	 *
+	 * @param precise Should the updates be timed precisely
+	 */
+	public void setPrecisePacing(boolean precise)
+	{
+		this.pacer.precise = precise;
+	}
+	
+	/**
+	 * @return Are the updates timed with sub-millisecond accuracy
+	 */
+	public boolean usesPrecisePacing()
+	{
+		return this.pacer.precise;
+	}
+	
+	/**
+	 * Changes what is done when the fixed steps can't be simulated fast 
+	 * enough
+	 *
+	 * @param policy The policy used when the simulation falls behind
+	 * @see #setFixedTimeStep(boolean)
+	 */
+	public void setFrameSkipPolicy(FrameSkipPolicy policy)
+	{
+		if (policy != null)
+			this.frameskippolicy = policy;
+	}
+	
+	/**
+	 * Tells how far the time is between the latest fixed step and the next 
+	 * one. Objects can be drawn between their previous and current states 
+	 * using this value. The value is always 1 when fixed time step isn't used.
+	 *
+	 * @return How large a portion of the next step has passed [0, 1]
+	 * @see #getStepNumber()
+	 */
+	public double getInterpolationAlpha()
+	{
+		return this.interpolationalpha;
+	}
+	
+	/**
+	 * @return The number of the latest fixed step. The number increases by 
+	 * one each time the actors take a fixed step.
+	 * @see #setFixedTimeStep(boolean)
+	 */
+	public long getStepNumber()
+	{
+		return this.stepnumber;
+	}
+	
+	/**
+	 * Returns the histogram that records how long the time between two screen 
+	 * updates is. The histogram can be used for monitoring how evenly the 
+	 * frames are paced.
+	 *
+	 * @return The histogram of the latest frame times
+	 */
+	public FrameTimeHistogram getFrameTimeHistogram()
+	{
+		return this.frametimes;
+	}
+	
+	/**
+	 * Informs the actors about a single whole step and updates the sinks right 
+	 * away without waiting. The step doesn't depend on the time so the steps 
+	 * can be used for running the game deterministically. This shouldn't be 
+	 * used while the stephandler is running in its own thread.
+	 */
+	public void simulateStep()
+	{
+		this.stepnumber ++;
+		this.interpolationalpha = 1;
+		
+		act(1);
+		
+		updateScreen(System.nanoTime());
+		updateInput();
+	}
+	
 	/**
 	 * Stops the stephandler from functioning anymore
 	 */
@@ -99,15 +446,21 @@ public class StepHandler extends ActorHandler implements Runnable
 	// This method updates the actors and the window when needed
 	private void update()
 	{
-		// Remembers the time
-		this.nextupdatemillis = System.currentTimeMillis() + this.callinterval;
+		if (this.fixedtimestep)
+		{
+			updateFixed();
+			return;
+		}
+		this.lastupdatenanos = 0;
+		
+		long now = System.nanoTime();
 		
 		// Calls all actors
 		if (!isDead())
 		{
 			// Calculates the step length that is informed for the objects
-			double steps = (System.currentTimeMillis() - this.lastactmillis) / 
-					(double) STEPLENGTH;
+			double steps = (now - this.lastactnanos) / (double) STEPNANOS;
+			this.lastactnanos = now;
 			
 			// Sometimes the true amount of steps can't be informed and a 
 			// different number is given instead (physics don't like there 
@@ -118,238 +471,271 @@ public class StepHandler extends ActorHandler implements Runnable
 			act(steps);
 			
 			// Updates the game according to the changes
-			this.window.callScreenUpdate();
-			this.window.callMousePositionUpdate();
-			
-			// Updates the stepmillis
-			this.lastactmillis = System.currentTimeMillis();
+			updateScreen(now);
+			updateInput();
 		}
 		// Stops running if dies
 		else
 			this.running = false;
 		
-		// If there is time, the thread will wait until another step is needed
-		if (System.currentTimeMillis() < this.nextupdatemillis)
+		// Waits until another step is needed
+		this.nextupdatenanos = this.pacer.getNextFrameTime(
+				this.nextupdatenanos, this.callinterval * 1000000L);
+		if (!this.pacer.waitUntil(this.nextupdatenanos))
+			this.running = false;
+	}
+	
+	// Informs the actors in fixed steps and updates the screen when needed
+	private void updateFixed()
+	{
+		long now = System.nanoTime();
+		
+		// Starts counting the time when the mode is changed
+		if (this.lastupdatenanos == 0)
 		{
-			synchronized (this)
-			{
-				try
-				{
-					// TODO: Apparently this can become negative under very 
-					// rare circumstances (added the second check, hope it helps)
-					if (System.currentTimeMillis() < this.nextupdatemillis)
-						wait(this.nextupdatemillis - System.currentTimeMillis());
-				}
-				catch (InterruptedException exception)
-				{
-					System.err.println("StepHandler's stepdelay was " +
-							"interupted unexpectedly");
-					exception.printStackTrace();
-				}
-			}
+			this.lastupdatenanos = now;
+			this.nextupdatenanos = now;
+			this.accumulatednanos = 0;
+		}
+		
+		this.accumulatednanos += now - this.lastupdatenanos;
+		this.lastupdatenanos = now;
+		this.lastactnanos = now;
+		
+		// Stops running if dies
+		if (isDead())
+		{
+			this.running = false;
+			return;
+		}
+		
+		// Simulates the whole steps that have passed
+		int steps = 0;
+		while (this.accumulatednanos >= STEPNANOS && 
+				steps < this.maxstepspercall)
+		{
+			this.stepnumber ++;
+			act(1);
+			this.accumulatednanos -= STEPNANOS;
+			steps ++;
+		}
+		
+		// If the simulation falls behind, either continues from the current 
+		// time or tries to catch up during the next updates
+		if (this.accumulatednanos >= STEPNANOS)
+		{
+			if (this.frameskippolicy == FrameSkipPolicy.SLOW_DOWN)
+				this.accumulatednanos %= STEPNANOS;
+			else
+				this.accumulatednanos = Math.min(this.accumulatednanos, 
+						MAXBACKLOGSTEPS * STEPNANOS);
+		}
+		
+		this.interpolationalpha = Math.min(1, 
+				this.accumulatednanos / (double) STEPNANOS);
+		
+		// Updates the screen if it's time to do so
+		if (now >= this.nextupdatenanos)
+		{
+			updateScreen(now);
+			this.nextupdatenanos = this.pacer.getNextFrameTime(
+					this.nextupdatenanos, this.callinterval * 1000000L);
 		}
+		updateInput();
+		
+		// Waits until the next step or screen update
+		long nextstepnanos = now + STEPNANOS - this.accumulatednanos;
+		if (!this.pacer.waitUntil(Math.min(nextstepnanos, this.nextupdatenanos)))
+			this.running = false;
+	}
+	
+	// Redraws the screen and records the frame time
+	private void updateScreen(long now)
+	{
+		if (this.rendersink != null)
+			this.rendersink.callScreenUpdate();
+		
+		if (this.lastframenanos != 0)
+			this.frametimes.record(now - this.lastframenanos);
+		this.lastframenanos = now;
+	}
+	
+	private void updateInput()
+	{
+		if (this.inputsink != null)
+			this.inputsink.callMousePositionUpdate();
+	}
+	
+	
+	// ENUMERATIONS	------------------------------------------------------
+	
+	/**
+	 * Stage is a part of a step. The stages are handled in the order they 
+	 * are introduced here.
+	 *
+	 * @author Mikko Hilpinen.
+	 *         Created 18.10.2026.
+	 */
+	public enum Stage
+	{
+		/**
+		 * The actors that react to the user's input
+		 */
+		INPUT,
+		/**
+		 * The actors that handle the game logic
+		 */
+		LOGIC,
+		/**
+		 * The actors that move the objects
+		 */
+		PHYSICS,
+		/**
+		 * The actors that check collisions between the objects
+		 */
+		COLLISION,
+		/**
+		 * The actors that animate the objects
+		 */
+		ANIMATION,
+		/**
+		 * The actors that prepare the objects to be drawn
+		 */
+		RENDER;
+	}
+	
+	/**
+	 * FrameSkipPolicy tells what the stephandler does when it can't simulate 
+	 * the fixed steps fast enough
+	 *
+	 * @author Mikko Hilpinen.
+	 *         Created 18.10.2026.
+	 * @see StepHandler#setFixedTimeStep(boolean)
+	 */
+	public enum FrameSkipPolicy
+	{
+		/**
+		 * The steps that couldn't be simulated are skipped. The game slows 
+		 * down but stays responsive.
+		 */
+		SLOW_DOWN,
+		/**
+		 * The steps that couldn't be simulated are simulated during the 
+		 * following updates, skipping screen updates if necessary. The game 
+		 * keeps its speed as long as it can catch up.
+		 */
+		CATCH_UP;
 	}
 	
 	
 	// SUBCLASSES	------------------------------------------------------
 	
-	// ApsOptimizer optimizes the aps to get virtually as close to the 
-	// optimal aps as possible
-	private class ApsOptimizer implements Actor
+	// StageHandler handles the actors of a single stage and measures how long 
+	// the stage takes
+	private class StageHandler extends ParallelActorHandler
 	{
 		// ATTRIBUTES	-------------------------------------------------
 		
-		private int optimalsteptime;
-		private int optimalaps;
-		private int maxstepsizeadjustment;
-		private int currentstepsizeadjustments;
-		private int checkphase;
-		private int checkdelay;
-		private int breaklength;
-		private long lastcheck;
-		private boolean onbreak;
-		private boolean dead;
-		private int aps;
-		private int actions;
-		private long lastmillis;
-		private int lastapsdifference;
-		private int stepsizeadjuster;
-		private int maxoptimizations;
-		private int optimizationsdone;
+		private Stage stage;
+		private volatile long lastnanos;
+		private volatile double averagenanos;
 		
 		
 		// CONSTRUCTOR	-------------------------------------------------
 		
-		/**
-		 * Creates a new apsOptimizer with the given information. The optimizer 
-		 * will start to optimize the aps after a small delay
-		 *
-		 * @param startsteptime How long is the steptime in the beginning 
-		 * of the program (how long is the default step time, also defines the 
-		 * optimal actions per second value)
-		 * @param maxstepsizeadjustment How much the stepsize can be adjusted at 
-		 * once (the larger value makes optimization more precise but also 
-		 * makes it last longer)
-		 * @param checkdelay How many milliseconds the optimizer calculates the 
-		 * values before they are adjusted again (>= 1000)
-		 * @param breaklength How many milliseconds the optimizer sleeps after 
-		 * it has done its optimizing (> checkdelay)
-		 * @param maximumoptimizations how many optimizations will be done 
-		 * before the optimizer dies
-		 */
-		public ApsOptimizer(int startsteptime, int maxstepsizeadjustment, 
-				int checkdelay, int breaklength, int maximumoptimizations)
+		public StageHandler(Stage stage)
 		{
+			super(false, StepHandler.this, 64, null);
+			
 			// Initializes attributes
-			this.optimalsteptime = startsteptime;
-			this.optimalaps = 1000 / this.optimalsteptime;
-			this.aps = this.optimalaps;
-			this.maxstepsizeadjustment = maxstepsizeadjustment;
-			this.checkdelay = checkdelay;
-			this.breaklength = breaklength;
-			this.checkphase = 0;
-			this.lastcheck = System.currentTimeMillis();
-			this.onbreak = false;
-			this.dead = false;
-			this.actions = 0;
-			this.lastmillis = System.currentTimeMillis();
-			this.lastapsdifference = 0;
-			this.stepsizeadjuster = 0;
-			this.currentstepsizeadjustments = 0;
-			this.maxoptimizations = maximumoptimizations;
-			this.optimizationsdone = 0;
+			this.stage = stage;
+			this.lastnanos = 0;
+			this.averagenanos = 0;
 		}
 		
 		
 		// IMPLEMENTED METHODS	-----------------------------------------
 		
 		@Override
-		public boolean isActive()
-		{
-			// The optimizer is always active
-			return true;
-		}
-
-		@Override
-		public void activate()
-		{
-			// The optimizer is always active
-		}
-
-		@Override
-		public void inactivate()
+		public void act(double steps)
 		{
-			// The optimizer is always active
+			long starttime = System.nanoTime();
+			
+			super.act(steps);
+			
+			// Updates the durations (the average follows the recent steps)
+			this.lastnanos = System.nanoTime() - starttime;
+			this.averagenanos = 0.9 * this.averagenanos + 0.1 * this.lastnanos;
 		}
-
+		
 		@Override
-		public boolean isDead()
+		protected String getMetricsName()
 		{
-			// The optimizer can only die while on break
-			return this.dead && this.onbreak;
+			return "Stage " + this.stage;
 		}
-
-		@Override
-		public void kill()
+	}
+	
+	// FramePacer waits until the given moments as accurately as possible. 
+	// The thread is parked for most of the wait. If precise pacing is used, 
+	// the last moments are spent yielding the thread. An interrupted thread 
+	// stops the stephandler.
+	private static class FramePacer
+	{
+		// ATTRIBUTES	-------------------------------------------------
+		
+		// How long before the deadline the pacer stops parking the thread
+		private static final long SPINNANOS = 1000000;
+		
+		private volatile boolean precise;
+		
+		
+		// CONSTRUCTOR	-------------------------------------------------
+		
+		public FramePacer(boolean precise)
 		{
-			this.dead = true;
+			this.precise = precise;
 		}
-
-		@Override
-		public void act(double steps)
+		
+		
+		// OTHER METHODS	---------------------------------------------
+		
+		// Calculates when the next frame should start. The frames are 
+		// scheduled at even intervals so that a late frame doesn't delay 
+		// the following ones. If the program has fallen more than a frame 
+		// behind, the schedule starts again from the current time.
+		public long getNextFrameTime(long lastframetime, long interval)
 		{
-			// Calculates the aps
-			this.actions ++;
+			long now = System.nanoTime();
+			long next = lastframetime + interval;
 			
-			if (System.currentTimeMillis() - this.lastmillis >= 1000)
-			{
-				this.aps = this.actions;
-				this.actions = 0;
-				this.lastmillis = System.currentTimeMillis();
-			}
+			if (next < now - interval)
+				return now;
 			
-			// Optimizes (if needed)
-			int delay = this.checkdelay;
-			if (this.onbreak)
-				delay = this.breaklength;
-			// Checks if a new check is needed
-			if (System.currentTimeMillis() - this.lastcheck >= delay)
-				optimize();
+			return next;
 		}
 		
-		private void optimize()
+		// Returns false if the thread was interrupted during the wait. The 
+		// interrupt status is kept so that the caller can stop.
+		public boolean waitUntil(long deadline)
 		{
-			// Stops the break
-			this.onbreak = false;
-			
-			// Calculates the current aps difference
-			int currentapsdifference = Math.abs(this.aps - this.optimalaps);
-			
-			// Phase 0: Checks if the aps is optimal
-			if (this.checkphase == 0)
+			while (true)
 			{
-				// Of the aps is optimal goes to break
-				if (currentapsdifference == 0)
-					goToBreak();
-				// Otherwise advances to the next phase (and updates the steptime)
+				long remaining = deadline - System.nanoTime();
+				
+				if (remaining <= 0)
+					return true;
+				
+				// Interrupted threads aren't parked
+				if (Thread.currentThread().isInterrupted())
+					return false;
+				
+				if (!this.precise)
+					LockSupport.parkNanos(remaining);
+				else if (remaining > SPINNANOS)
+					LockSupport.parkNanos(remaining - SPINNANOS);
 				else
-				{
-					this.optimalsteptime = StepHandler.this.callinterval;
-					if (this.aps < this.optimalaps)
-						this.stepsizeadjuster = -1;
-					else
-						this.stepsizeadjuster = 1;
-					this.checkphase ++;
-					this.currentstepsizeadjustments = 0;
-				}
+					Thread.yield();
 			}
-			// Phase 1: Slowly adjusts the steptime in hopes of adjusting 
-			// the aps
-			if (this.checkphase == 1)
-			{
-				// If the current apsdifference is larger than the last aps or 
-				// If there have already been too many adjustments
-				// difference, goes to the next phase
-				if (currentapsdifference > this.lastapsdifference || 
-						this.currentstepsizeadjustments >= 
-						this.maxstepsizeadjustment)
-				{
-					goToBreak();
-					StepHandler.this.callinterval = this.optimalsteptime;
-				}
-				// Otherwise further adjusts the stepduration
-				else
-				{
-					// Checks if the current status is closer to the goal than 
-					// the last and remembers it
-					if (currentapsdifference < this.lastapsdifference)
-						this.optimalsteptime = StepHandler.this.callinterval;
-					
-					// Increases / decreases the stepduration
-					StepHandler.this.callinterval += this.stepsizeadjuster;
-					this.currentstepsizeadjustments ++;
-				}
-			}
-			
-			// Remembers the last aps difference
-			this.lastapsdifference = Math.abs(this.aps - this.optimalaps);
-			// Updates the timer
-			this.lastcheck = System.currentTimeMillis();
-		}
-		
-		private void goToBreak()
-		{
-			// Updates the stephandler's action modifier
-			//StepHandler.this.actionmodifier = this.optimalaps / 
-			//		(double) this.aps;
-			
-			this.onbreak = true;
-			this.checkphase = 0;
-			this.optimizationsdone ++;
-			
-			// If the optimizer has done enough optimizations, it kills itself
-			if (this.optimizationsdone >= this.maxoptimizations)
-				kill();
 		}
 	}
 }
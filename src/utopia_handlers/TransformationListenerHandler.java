@@ -31,7 +31,23 @@ public class TransformationListenerHandler extends LogicalHandler
 	public TransformationListenerHandler(boolean autodeath,
 			TransformationListenerHandler superhandler)
 	{
-		super(autodeath, superhandler);
+		this(autodeath, true, superhandler);
+	}
+	
+	/**
+	 * Creates a new tranformationListenerHandler with the given specs. 
+	 * Handlers used by a single object don't usually need to be thread-safe.
+	 * 
+	 * @param autodeath Will the handler automatically die if all the listeners 
+	 * in it are either killed or removed
+	 * @param threadsafe Can the events be informed from multiple threads
+	 * @param superhandler The TransformationListenerHandler that will inform 
+	 * the handler about the transformation events (optional)
+	 */
+	public TransformationListenerHandler(boolean autodeath, boolean threadsafe, 
+			TransformationListenerHandler superhandler)
+	{
+		super(autodeath, threadsafe, superhandler);
 		
 		// Initializes attributes
 		this.lastevent = null;
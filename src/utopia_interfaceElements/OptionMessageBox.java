@@ -199,6 +199,8 @@ public class OptionMessageBox extends MessageBox implements LogicalHandled
 			
 			// Adds the object to the handler(s)
 			this.box.getTransformationListenerHandler().addListener(this);
+			// The button dies with the box
+			informOwnersAboutDeathOf(this.box);
 		}
 		
 		
@@ -131,7 +131,14 @@ public interface TransformationListener extends LogicalHandled
 		/**
 		 * On shearing the object is sheared
 		 */
-		SHEARING;
+		SHEARING, 
+		/**
+		 * On resizing the object's size or origin changes without any 
+		 * other transformation, for example when the object's sprite 
+		 * changes. Resizing is always tied to the z-axis since it may 
+		 * affect both of the other axes.
+		 */
+		RESIZING;
 	}
 	
 	/**
@@ -1,5 +1,6 @@
 package utopia_resourcebanks;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Set;
 
@@ -83,6 +84,15 @@ public abstract class AbstractBank
 		return this.bank.keySet();
 	}
 	
+	/**
+	 * @return The objects held in the bank. Unlike getObject, this doesn't 
+	 * initialize the bank so it can be used during the initialization.
+	 */
+	protected Collection<BankObject> getContent()
+	{
+		return this.bank.values();
+	}
+	
 	
 	// OTHER METHODS	-------------------------------------------------
 	
@@ -2,8 +2,10 @@ package utopia_resourcebanks;
 
 
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
 
 import utopia_graphic.Sprite;
+import utopia_graphic.TextureAtlas;
 
 
 
@@ -16,6 +18,26 @@ import utopia_graphic.Sprite;
  */
 public abstract class SpriteBank extends AbstractBank
 {    
+	// ATTRIBUTES	---------------------------------------------------------
+	
+	private boolean usesatlas;
+	private TextureAtlas atlas;
+	
+	
+	// CONSTRUCTOR	---------------------------------------------------------
+	
+	/**
+	 * Creates a new uninitialized spritebank. The bank will be initialized 
+	 * when an object tries to get something from it.
+	 */
+	public SpriteBank()
+	{
+		// Initializes attributes
+		this.usesatlas = false;
+		this.atlas = null;
+	}
+	
+	
     // ABSTRACT METHODS	-----------------------------------------------------
     
     /**
@@ -46,6 +68,27 @@ public abstract class SpriteBank extends AbstractBank
             System.err.println("All of the sprites could not be loaded!");
             fnfe.printStackTrace();
         }
+		
+		// Packs the sprites into an atlas if needed
+		if (this.usesatlas)
+		{
+			// The bank isn't initialized yet so getSprite can't be used
+			ArrayList<Sprite> sprites = new ArrayList<Sprite>();
+			for (BankObject sprite : getContent())
+			{
+				sprites.add((Sprite) sprite);
+			}
+			
+			this.atlas = TextureAtlas.pack(sprites, 
+					TextureAtlas.DEFAULTPAGESIZE);
+		}
+	}
+	
+	@Override
+	public void uninitialize()
+	{
+		super.uninitialize();
+		this.atlas = null;
 	}
     
     
@@ -62,6 +105,29 @@ public abstract class SpriteBank extends AbstractBank
     	return (Sprite) getObject(spritename);
     }
     
+    /**
+     * Changes whether the sprites in the bank are packed into a texture 
+     * atlas when the bank is initialized. The atlas keeps the images in a 
+     * few large pages, which is faster to draw when there are many small 
+     * sprites. This should be set before the bank is initialized.
+     *
+     * @param usesatlas Should the sprites be packed into an atlas
+     * @see TextureAtlas
+     */
+    public void setUsesTextureAtlas(boolean usesatlas)
+    {
+    	this.usesatlas = usesatlas;
+    }
+    
+    /**
+     * @return The atlas the sprites of the bank are packed into or null if 
+     * the bank doesn't use an atlas or isn't initialized yet
+     */
+    public TextureAtlas getTextureAtlas()
+    {
+    	return this.atlas;
+    }
+    
     /**
      * Scales all the spites held in the bank. Note that this scaling is 
      * permanent and can only be undone with another scale.
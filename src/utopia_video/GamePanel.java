@@ -4,9 +4,17 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.geom.Area;
+import java.awt.image.VolatileImage;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.swing.JPanel;
 
+import utopia_graphic.DirtyRegionFinder;
+import utopia_graphic.RenderState;
 import utopia_handlers.DrawableHandler;
 import utopia_utility.DepthConstants;
 
@@ -26,6 +34,14 @@ public class GamePanel extends JPanel
 	private int height;
 	private DrawableHandler drawer;
 	private double xscale, yscale;
+	private volatile boolean pipelined, dirtyrendering;
+	// The latest recorded state of the drawer (only used when pipelined)
+	private volatile RenderState rendersnapshot;
+	// The buffer used in active rendering (created when needed)
+	private VolatileImage backbuffer;
+	// The recorded state that was drawn last time. Swing paints this state 
+	// so that the repainted areas match the drawn content.
+	private volatile RenderState drawnsnapshot;
 	
 	
 	// CONSTRUCTOR ---------------------------------------------------------
@@ -41,6 +57,11 @@ public class GamePanel extends JPanel
 		// Initializes attributes
 		this.xscale = 1;
 		this.yscale = 1;
+		this.pipelined = false;
+		this.dirtyrendering = false;
+		this.drawnsnapshot = null;
+		this.rendersnapshot = null;
+		this.backbuffer = null;
 		this.width = width;
 		this.height = height;
 		// TODO: Check that 5 is good
@@ -60,9 +81,23 @@ public class GamePanel extends JPanel
 	@Override
 	public void paintComponent(Graphics g)
 	{
-		// The panel draws all stuff inside it
-		Graphics2D g2d = (Graphics2D) g;
+		// The panel draws all stuff inside it. With dirty region rendering, 
+		// the state that was compared when the repaint was requested is 
+		// drawn, even if a newer one has been recorded since
+		RenderState snapshot = null;
+		if (this.dirtyrendering)
+			snapshot = this.drawnsnapshot;
+		if (snapshot == null)
+			snapshot = this.rendersnapshot;
 		
+		drawContent((Graphics2D) g, snapshot);
+	}
+	
+	
+	// PRIVATE METHODS ---------------------------------------------------
+	
+	private void drawContent(Graphics2D g2d, RenderState snapshot)
+	{
 		// Scales the area of drawing
 		if (this.xscale != 1 || this.yscale != 1)
 			g2d.scale(this.xscale, this.yscale);
@@ -70,12 +105,14 @@ public class GamePanel extends JPanel
 		// Clears the former drawings
 		g2d.clearRect(0, 0, this.width, this.height);
 		
-		this.drawer.drawSelf(g2d);
+		// In pipelined mode, the latest recorded state is drawn instead of 
+		// the drawables themselves
+		if (this.pipelined && snapshot != null)
+			snapshot.draw(g2d);
+		else
+			this.drawer.drawSelf(g2d);
 	}
 	
-	
-	// PRIVATE METHODS ---------------------------------------------------
-	
 	private void formatPanel()
 	{
 		//Let's set the panel's size...
@@ -139,6 +176,194 @@ public class GamePanel extends JPanel
 		return this.drawer;
 	}
 	
+	/**
+	 * Changes whether the panel draws recorded states of its content instead 
+	 * of drawing the content directly. With pipelined drawing, the game can 
+	 * update the next step while the previous one is being drawn.
+	 *
+	 * @param pipelined Should the panel draw recorded states
+	 * @see #publishRenderSnapshot()
+	 */
+	protected void setPipelined(boolean pipelined)
+	{
+		this.pipelined = pipelined;
+		if (!pipelined)
+		{
+			this.rendersnapshot = null;
+			this.drawnsnapshot = null;
+		}
+	}
+	
+	/**
+	 * Changes whether the panel only draws the areas that changed since the 
+	 * last frame. The changes are found by comparing the recorded states of 
+	 * the content so this only works when the panel is pipelined. The area 
+	 * of a drawable that can't be recorded is unknown, so while any such 
+	 * drawable is visible (a tilemap or a drawnobject that doesn't record 
+	 * its state, for example), the whole panel is drawn each frame.
+	 *
+	 * @param dirtyrendering Should only the changed areas be drawn
+	 * @see #setPipelined(boolean)
+	 * @see DirtyRegionFinder
+	 */
+	protected void setDirtyRegionRendering(boolean dirtyrendering)
+	{
+		this.dirtyrendering = dirtyrendering;
+		
+		// The compared state isn't updated without dirty region rendering
+		if (!dirtyrendering)
+			this.drawnsnapshot = null;
+	}
+	
+	/**
+	 * Asks Swing to repaint the panel. With dirty region rendering, only the 
+	 * areas that changed since the last request are repainted.
+	 */
+	protected void repaintChanged()
+	{
+		// The compared state is remembered and painted later
+		List<Rectangle> areas = findChangedAreas(this.rendersnapshot);
+		
+		if (areas == null)
+			repaint();
+		else
+		{
+			for (Rectangle area : areas)
+			{
+				repaint(area);
+			}
+		}
+	}
+	
+	/**
+	 * Draws the panel's content directly from the calling thread instead of 
+	 * waiting for Swing to repaint the panel. The content is first drawn to 
+	 * a back buffer which is then shown on the panel. With dirty region 
+	 * rendering, only the areas that changed are drawn and shown.
+	 *
+	 * @see GameWindow#setActiveRendering(boolean)
+	 */
+	protected void renderActively()
+	{
+		int bufferwidth = getWidth();
+		int bufferheight = getHeight();
+		if (bufferwidth <= 0 || bufferheight <= 0)
+			return;
+		
+		RenderState snapshot = this.rendersnapshot;
+		List<Rectangle> areas = findChangedAreas(snapshot);
+		
+		// The buffer may be lost at any time, in which case the frame is 
+		// drawn again
+		do
+		{
+			int status = VolatileImage.IMAGE_INCOMPATIBLE;
+			if (this.backbuffer != null && 
+					this.backbuffer.getWidth() == bufferwidth && 
+					this.backbuffer.getHeight() == bufferheight)
+				status = this.backbuffer.validate(getGraphicsConfiguration());
+			
+			if (status == VolatileImage.IMAGE_INCOMPATIBLE)
+			{
+				// The buffer can't be created before the panel is shown
+				this.backbuffer = createVolatileImage(bufferwidth, bufferheight);
+				if (this.backbuffer == null)
+					return;
+			}
+			// A new or restored buffer doesn't contain the previous frame
+			if (status != VolatileImage.IMAGE_OK)
+				areas = null;
+			
+			// Nothing needs to be drawn if nothing changed
+			if (areas != null && areas.isEmpty())
+				break;
+			
+			Area clip = null;
+			if (areas != null)
+			{
+				clip = new Area();
+				for (Rectangle area : areas)
+				{
+					clip.add(new Area(area));
+				}
+			}
+			
+			Graphics2D g2d = this.backbuffer.createGraphics();
+			if (clip != null)
+				g2d.setClip(clip);
+			g2d.setBackground(getBackground());
+			drawContent(g2d, snapshot);
+			g2d.dispose();
+			
+			// Shows the buffer
+			Graphics g = getGraphics();
+			if (g != null)
+			{
+				if (clip != null)
+					g.setClip(clip);
+				g.drawImage(this.backbuffer, 0, 0, null);
+				g.dispose();
+			}
+		}
+		while (this.backbuffer.contentsLost());
+		
+		Toolkit.getDefaultToolkit().sync();
+	}
+	
+	// Finds the areas of the panel that have changed since the last time 
+	// this was called. Returns null if the whole panel should be drawn.
+	private List<Rectangle> findChangedAreas(RenderState snapshot)
+	{
+		RenderState previous = this.drawnsnapshot;
+		this.drawnsnapshot = snapshot;
+		
+		if (!this.dirtyrendering || !this.pipelined || snapshot == null)
+			return null;
+		
+		List<Rectangle> regions = DirtyRegionFinder.findDirtyRegions(previous, 
+				snapshot);
+		if (regions == null)
+			return null;
+		
+		// The regions are scaled to the panel's pixels
+		Rectangle panelarea = new Rectangle(0, 0, getWidth(), getHeight());
+		ArrayList<Rectangle> areas = new ArrayList<Rectangle>(regions.size());
+		long coveredarea = 0;
+		for (Rectangle region : regions)
+		{
+			int minx = (int) Math.floor(region.x * this.xscale);
+			int miny = (int) Math.floor(region.y * this.yscale);
+			int maxx = (int) Math.ceil((region.x + region.width) * this.xscale);
+			int maxy = (int) Math.ceil((region.y + region.height) * this.yscale);
+			
+			Rectangle area = new Rectangle(minx, miny, maxx - minx, 
+					maxy - miny).intersection(panelarea);
+			if (!area.isEmpty())
+			{
+				areas.add(area);
+				coveredarea += (long) area.width * area.height;
+			}
+		}
+		
+		// Drawing most of the panel in parts is slower than drawing it at once
+		if (coveredarea * 2 > (long) panelarea.width * panelarea.height)
+			return null;
+		
+		return areas;
+	}
+	
+	/**
+	 * Records the current state of the panel's content so that it will be 
+	 * drawn the next time the panel is painted. This should be called in the 
+	 * thread that updates the game, after each step. Does nothing if the 
+	 * panel isn't pipelined.
+	 */
+	protected void publishRenderSnapshot()
+	{
+		if (this.pipelined)
+			this.rendersnapshot = this.drawer.captureRenderState();
+	}
+	
 	/**
 	 * Scales the panel, keeping the same resolution but changing the size 
 	 * of the area. The scaling is relative to the former scaling of the panel
@@ -22,6 +22,7 @@ import utopia_handlers.MainKeyListenerHandler;
 import utopia_handlers.MainMouseListenerHandler;
 import utopia_handlers.MouseListenerHandler;
 import utopia_handlers.StepHandler;
+import utopia_handlers.StepHandler.Stage;
 
 
 /**
@@ -32,7 +33,7 @@ import utopia_handlers.StepHandler;
  * @see utopia_video.GamePanel
  */
 @SuppressWarnings("serial")
-public class GameWindow extends JFrame
+public class GameWindow extends JFrame implements RenderSink, InputSink
 {	
 	// ATTRIBUTES ---------------------------------------------------------
 	
@@ -50,6 +51,7 @@ public class GameWindow extends JFrame
 	private ScreenDrawer screendrawer;
 	
 	private ArrayList<GamePanel> panels;
+	private boolean pipelinedrendering, dirtyrendering;
 	private ArrayList<JPanel> paddings;
 	private JPanel gamepanel;
 	
@@ -77,13 +79,10 @@ public class GameWindow extends JFrame
 	 * to slow down if the fps drops below this value so keeping it low increases 
 	 * usability. The program's physics may not support very low framerates 
 	 * though. (> 0)
-	 * @param optimizeAps Should Aps (actions per second) optimization be 
-	 * activated. The optimization tries to increase / decrease the Aps to the 
-	 * optimal value. Usually this is unnecessary but may counter the 
-	 * computer's attempts to limit the Aps
+	 * @see #setPrecisePacing(boolean)
 	 */
 	public GameWindow(int width, int height, String title, boolean hastoolbar, 
-			int maxfpslimit, int minimumsupportedfps, boolean optimizeAps)
+			int maxfpslimit, int minimumsupportedfps)
 	{
 		// Sets the decorations off if needed
 		if (!hastoolbar)
@@ -95,6 +94,8 @@ public class GameWindow extends JFrame
 		this.xscale = 1;
 		this.yscale = 1;
 		this.panels = new ArrayList<GamePanel>();
+		this.pipelinedrendering = false;
+		this.dirtyrendering = false;
 		this.paddings = new ArrayList<JPanel>();
 		this.toppaddingheight = 0;
 		this.leftpaddingwidth = 0;
@@ -120,11 +121,12 @@ public class GameWindow extends JFrame
 		// Creates and initializes important handlers
 		this.stephandler = new StepHandler(1000 / maxfpslimit, 
 				(int) Math.round((1000.0 / minimumsupportedfps) / 
-				StepHandler.STEPLENGTH), this, optimizeAps);
+				StepHandler.STEPLENGTH), this);
 		// And the screen drawer
 		this.screendrawer = new ScreenDrawer(this);
 		
-		this.listeneractorhandler = new ActorHandler(false, this.stephandler);
+		this.listeneractorhandler = new ActorHandler(false, 
+				this.stephandler.getStageHandler(Stage.INPUT));
 		this.mainkeyhandler = new MainKeyListenerHandler(this.listeneractorhandler);
 		this.mainmousehandler = new MainMouseListenerHandler(this.listeneractorhandler);
 		
@@ -141,6 +143,33 @@ public class GameWindow extends JFrame
 	}
 	
 	
+	/**
+	 * Creates a new window frame with given width and height.
+	 * 
+	 * @param width	Window's width (in pixels).
+	 * @param height Window's height (in pixels).
+	 * @param title The title shown in the window's border
+	 * @param hastoolbar Should the window have an toolbar (usually false if 
+	 * fullscreen is used)
+	 * @param maxfpslimit What is the maximum amount of frames / actions per 
+	 * second (> 0)
+	 * @param minimumsupportedfps What is the smallest possible amount of 
+	 * frames / actions per second the program supports (> 0)
+	 * @param optimizeAps Doesn't have an effect anymore. The frames are 
+	 * scheduled at even intervals so the aps doesn't need to be optimized. 
+	 * Precise pacing is not used.
+	 * @deprecated The aps optimization was replaced by the frame pacing. 
+	 * Use {@link #GameWindow(int, int, String, boolean, int, int)} instead.
+	 */
+	@Deprecated
+	public GameWindow(int width, int height, String title, boolean hastoolbar, 
+			int maxfpslimit, int minimumsupportedfps, boolean optimizeAps)
+	{
+		this(width, height, title, hastoolbar, maxfpslimit, 
+				minimumsupportedfps);
+	}
+	
+	
 	// OTHER METHODS	 ---------------------------------------------------
 	
 	private void formatWindow()
@@ -176,10 +205,81 @@ public class GameWindow extends JFrame
 		if (newPanel == null || direction == null)
 			return;
 		
+		newPanel.setPipelined(this.pipelinedrendering);
+		newPanel.setDirtyRegionRendering(this.dirtyrendering);
 		this.gamepanel.add(newPanel, direction);
 		this.panels.add(newPanel);
 	}
 	
+	/**
+	 * Changes whether the game is drawn from recorded states. When pipelined, 
+	 * the state of each panel is recorded at the end of each step and the 
+	 * screen is drawn from the recorded state while the next step is 
+	 * updated. Drawables that can't be recorded are still drawn directly.
+	 *
+	 * @param pipelined Should the window use pipelined drawing
+	 * @see utopia_handleds.SnapshotDrawable
+	 */
+	public void setPipelinedRendering(boolean pipelined)
+	{
+		this.pipelinedrendering = pipelined;
+		
+		for (int i = 0; i < this.panels.size(); i++)
+		{
+			this.panels.get(i).setPipelined(pipelined);
+		}
+	}
+	
+	/**
+	 * Changes whether the screen is drawn actively. In active rendering the 
+	 * panels are drawn straight from the drawing thread using back buffers, 
+	 * instead of waiting for Swing to repaint them, which makes the delay 
+	 * between a step and its frame much more predictable.
+	 *
+	 * @param active Should the window be drawn actively
+	 */
+	public void setActiveRendering(boolean active)
+	{
+		this.screendrawer.setActiveRendering(active);
+	}
+	
+	/**
+	 * Changes whether the frames are timed with sub-millisecond accuracy. 
+	 * Precise pacing uses more CPU but keeps the frame times more even.
+	 *
+	 * @param precise Should the frames be timed precisely
+	 * @see StepHandler#setPrecisePacing(boolean)
+	 */
+	public void setPrecisePacing(boolean precise)
+	{
+		this.stephandler.setPrecisePacing(precise);
+	}
+	
+	/**
+	 * Changes whether only the changed areas of the screen are drawn. The 
+	 * changes are found by comparing the recorded states of the panels so 
+	 * this also turns pipelined rendering on. Drawables that can't be 
+	 * recorded and camera movements make the whole screen drawn again. 
+	 * Since the area of a drawable that can't be recorded is unknown, the 
+	 * rendering only saves work in scenes where all the visible drawables 
+	 * can be recorded.
+	 *
+	 * @param dirtyrendering Should only the changed areas be drawn
+	 * @see #setPipelinedRendering(boolean)
+	 * @see utopia_handleds.SnapshotDrawable
+	 */
+	public void setDirtyRegionRendering(boolean dirtyrendering)
+	{
+		this.dirtyrendering = dirtyrendering;
+		if (dirtyrendering)
+			setPipelinedRendering(true);
+		
+		for (int i = 0; i < this.panels.size(); i++)
+		{
+			this.panels.get(i).setDirtyRegionRendering(dirtyrendering);
+		}
+	}
+	
 	/**
 	 * Removes a gamepanel from the window
 	 *
@@ -198,9 +298,7 @@ public class GameWindow extends JFrame
 			p.getDrawer().kill();
 	}
 	
-	/**
-	 * Updates mouse's position in the game
-	 */
+	@Override
 	public void callMousePositionUpdate()
 	{
 		// Throws exceptions from time to time so nullcheck is needed
@@ -213,17 +311,50 @@ public class GameWindow extends JFrame
 				getMousePositionOnGamePanels(mousePointOnScreen));
 	}
 	
-	/**
-	 * This method should be called when the screen needs redrawing
-	 */
+	@Override
 	public void callScreenUpdate()
 	{
+		// Records the state of the panels so that they can be drawn while 
+		// the next step is being updated
+		if (this.pipelinedrendering)
+		{
+			for (int i = 0; i < this.panels.size(); i++)
+			{
+				this.panels.get(i).publishRenderSnapshot();
+			}
+		}
+		
 		// Updates the screen drawer
 		this.screendrawer.callUpdate();
 		//if (this.screendrawer.isRunning())
 		//	this.screendrawer.notify();
 	}
 	
+	// Asks Swing to repaint the screen. With dirty region rendering only the 
+	// changed areas of the panels are repainted.
+	void repaintScreen()
+	{
+		if (!this.dirtyrendering)
+		{
+			repaint();
+			return;
+		}
+		
+		for (int i = 0; i < this.panels.size(); i++)
+		{
+			this.panels.get(i).repaintChanged();
+		}
+	}
+	
+	// Draws all the panels from the calling thread (used in active rendering)
+	void renderActively()
+	{
+		for (int i = 0; i < this.panels.size(); i++)
+		{
+			this.panels.get(i).renderActively();
+		}
+	}
+	
 	/**
 	 * @return The keyListenerHandler that will inform objects about key events 
 	 * in this window
@@ -0,0 +1,155 @@
+package utopia_video;
+
+import utopia_handlers.StepHandler;
+
+/**
+ * HeadlessDriver runs the game without a window. The driver can be used on
+ * servers, in tests and in benchmarks where no screen is available. The
+ * game can either be stepped a certain number of steps as fast as possible
+ * or run at a fixed rate in its own thread, like a GameWindow would.<p>
+ *
+ * The screen updates and the input are given to the sinks provided by the
+ * user. Either of them may be left out.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ * @see GameWindow
+ */
+public class HeadlessDriver
+{
+	// ATTRIBUTES	-----------------------------------------------------
+	
+	private StepHandler stephandler;
+	private Thread thread;
+	private long steppedframes, steppednanos;
+	
+	
+	// CONSTRUCTOR	-----------------------------------------------------
+	
+	/**
+	 * Creates a new headless driver. The driver doesn't start running until
+	 * told so.
+	 *
+	 * @param maxfpslimit How many steps there are per second at most when
+	 * the driver is run in its own thread (> 0)
+	 * @param maxstepspercall How many steps can be simulated during a single
+	 * update when the driver runs in its own thread (> 0)
+	 * @param rendersink The sink that is informed when the game should be
+	 * drawn (optional)
+	 * @param inputsink The sink that updates the input (optional)
+	 */
+	public HeadlessDriver(int maxfpslimit, int maxstepspercall,
+			RenderSink rendersink, InputSink inputsink)
+	{
+		// Initializes attributes
+		this.stephandler = new StepHandler(1000 / maxfpslimit, maxstepspercall,
+				rendersink, inputsink, false);
+		this.thread = null;
+		this.steppedframes = 0;
+		this.steppednanos = 0;
+	}
+	
+	
+	// GETTERS & SETTERS	---------------------------------------------
+	
+	/**
+	 * @return The stephandler that informs the game's actors. The handlers
+	 * of the game should be added to this handler.
+	 */
+	public StepHandler getStepHandler()
+	{
+		return this.stephandler;
+	}
+	
+	/**
+	 * @return How many steps have been simulated with step(int)
+	 */
+	public long getSteppedFrameNumber()
+	{
+		return this.steppedframes;
+	}
+	
+	/**
+	 * @return How many steps step(int) has simulated per second on average
+	 */
+	public double getAverageThroughput()
+	{
+		if (this.steppednanos == 0)
+			return 0;
+		
+		return this.steppedframes * 1000000000.0 / this.steppednanos;
+	}
+	
+	
+	// OTHER METHODS	-------------------------------------------------
+	
+	/**
+	 * Simulates the given number of steps as fast as possible. Each step has
+	 * the same length so the results don't depend on the speed of the
+	 * computer. The sinks are updated after each step. This shouldn't be
+	 * used while the driver is running in its own thread.
+	 *
+	 * @param frames How many steps are simulated
+	 * @return How many steps were simulated per second
+	 */
+	public double step(int frames)
+	{
+		long starttime = System.nanoTime();
+		
+		for (int i = 0; i < frames; i++)
+		{
+			this.stephandler.simulateStep();
+		}
+		
+		long duration = System.nanoTime() - starttime;
+		this.steppedframes += frames;
+		this.steppednanos += duration;
+		
+		if (duration == 0)
+			return 0;
+		
+		return frames * 1000000000.0 / duration;
+	}
+	
+	/**
+	 * Starts running the game in its own thread at the rate given in the
+	 * constructor
+	 */
+	public void start()
+	{
+		if (this.thread != null)
+			return;
+		
+		this.thread = new Thread(this.stephandler);
+		this.thread.start();
+	}
+	
+	/**
+	 * Stops the game from running in its own thread. The game can still be
+	 * stepped afterwards.
+	 */
+	public void stop()
+	{
+		if (this.thread == null)
+			return;
+		
+		// The stephandler may not have started running yet, in which case 
+		// it needs to be stopped again
+		try
+		{
+			while (this.thread.isAlive())
+			{
+				this.stephandler.stop();
+				this.thread.join(100);
+			}
+		}
+		catch (InterruptedException exception)
+		{
+			System.err.println("HeadlessDriver was interrupted while " +
+					"waiting for the game to stop");
+			exception.printStackTrace();
+		}
+		
+		this.thread = null;
+	}
+}
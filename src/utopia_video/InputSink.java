@@ -0,0 +1,18 @@
+package utopia_video;
+
+/**
+ * InputSink is asked to update the user's input once each update. Usually 
+ * the sink is a GameWindow that reads the mouse's position but the input 
+ * can also come from elsewhere, like a script.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ * @see utopia_handlers.StepHandler
+ */
+public interface InputSink
+{
+	/**
+	 * Updates mouse's position in the game
+	 */
+	public void callMousePositionUpdate();
+}
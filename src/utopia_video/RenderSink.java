@@ -0,0 +1,18 @@
+package utopia_video;
+
+/**
+ * RenderSink is informed each time the game should be drawn. Usually the 
+ * sink is a GameWindow but the game can also be drawn elsewhere, or not at 
+ * all.
+ *
+ * @author Mikko Hilpinen.
+ *         Created 18.10.2026.
+ * @see utopia_handlers.StepHandler
+ */
+public interface RenderSink
+{
+	/**
+	 * This method is called when the screen needs redrawing
+	 */
+	public void callScreenUpdate();
+}
@@ -12,6 +12,7 @@ public class ScreenDrawer implements Runnable
 	
 	private GameWindow window;
 	private boolean running;
+	private volatile boolean activerendering;
 	
 	
 	// CONSTRUCTOR	-----------------------------------------------------
@@ -28,6 +29,7 @@ public class ScreenDrawer implements Runnable
 		// Initializes attributes
 		this.window = window;
 		this.running = false;
+		this.activerendering = false;
 	}
 	
 	
@@ -66,6 +68,18 @@ public class ScreenDrawer implements Runnable
 		this.running = false;
 	}
 	
+	/**
+	 * Changes how the screen is drawn. In active rendering the drawer draws 
+	 * the screen itself instead of asking Swing to repaint it, so the 
+	 * screen is updated right away.
+	 *
+	 * @param active Should active rendering be used
+	 */
+	public void setActiveRendering(boolean active)
+	{
+		this.activerendering = active;
+	}
+	
 	/**
 	 * @return Is the drawer currently trying to draw stuff
 	 */
@@ -77,7 +91,10 @@ public class ScreenDrawer implements Runnable
 	private void draw()
 	{
 		// Draws the window and starts waiting for the next order
-		this.window.repaint();
+		if (this.activerendering)
+			this.window.renderActively();
+		else
+			this.window.repaintScreen();
 		try
 		{
 			synchronized (this)
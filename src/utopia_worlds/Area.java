@@ -8,6 +8,8 @@ import utopia_handlers.CollisionHandler;
 import utopia_handlers.DrawableHandler;
 import utopia_handlers.KeyListenerHandler;
 import utopia_handlers.MouseListenerHandler;
+import utopia_handlers.StepHandler;
+import utopia_handlers.StepHandler.Stage;
 import utopia_resourceHandling.GamePhase;
 import utopia_resourceHandling.ResourceActivator;
 import utopia_utility.DepthConstants;
@@ -41,7 +43,9 @@ public class Area extends Room
 	 * 
 	 * @param phase The GamePhase during which the area is active
 	 * @param superMouseHandler The MouseListenerHandler that the area's handlers will use
-	 * @param superActorHandler The ActorHandler that the area's handlers will use
+	 * @param superActorHandler The ActorHandler that the area's handlers will 
+	 * use. If this is a stepHandler, the handlers are added to the correct 
+	 * stages.
 	 * @param superDrawer The DrawableHandler that the area's handlers will use
 	 * @param superKeyHandler The keyListenerHandler that the area's keyHandler will use
 	 */
@@ -53,12 +57,15 @@ public class Area extends Room
 		
 		// Initializes attributes
 		this.phase = phase;
-		this.mousehandler = new MouseListenerHandler(false, superActorHandler, 
+		this.mousehandler = new MouseListenerHandler(false, 
+				getStageHandler(superActorHandler, Stage.INPUT), 
 				superMouseHandler);
-		this.actorhandler = new ActorHandler(false, superActorHandler);
+		this.actorhandler = new ActorHandler(false, 
+				getStageHandler(superActorHandler, Stage.LOGIC));
 		this.drawer = new DrawableHandler(false, true, DepthConstants.NORMAL, 5, 
 				superDrawer);
-		this.collisionhandler = new CollisionHandler(false, superActorHandler);
+		this.collisionhandler = new CollisionHandler(false, 
+				getStageHandler(superActorHandler, Stage.COLLISION));
 		this.keyHandler = new KeyListenerHandler(false, superKeyHandler);
 	}
 
@@ -129,4 +136,16 @@ public class Area extends Room
 	{
 		return this.keyHandler;
 	}
+	
+	
+	// OTHER METHODS	-------------------------------------------------
+	
+	private static ActorHandler getStageHandler(ActorHandler superActorHandler, 
+			Stage stage)
+	{
+		if (superActorHandler instanceof StepHandler)
+			return ((StepHandler) superActorHandler).getStageHandler(stage);
+		
+		return superActorHandler;
+	}
 }